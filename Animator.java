@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Planificador de animaciones a cuadros por segundo fijos.
+ *
+ * Cada rectángulo que se mueve con animación registra un movimiento (desde
+ * dónde sale y cuánto dura); un javax.swing.Timer avanza todos los
+ * movimientos a la vez en cada cuadro, interpolando la posición dibujada, y
+ * muestra los cambios de cada cuadro en un solo repintado. El hilo que pidió
+ * el movimiento no espera: recibe un CompletableFuture que se completa cuando
+ * el rectángulo llega a su destino.
+ *
+ * La posición del rectángulo (getXPosition / getYPosition) cambia de
+ * inmediato; solo el dibujo va llegando poco a poco.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class Animator {
+    /** Cuadros por segundo de las animaciones. */
+    public static final int FRAMES_PER_SECOND = 60;
+    /** Duración, en milisegundos, del deslizamiento de las fichas al inclinar. */
+    public static final int MOVE_MILLIS = 200;
+    /** Velocidad, en pixels por segundo, de los movimientos lentos de Rectangle. */
+    public static final int PIXELS_PER_SECOND = 200;
+
+    private static Animator animatorSingleton;
+
+    private final Map<Rectangle, Motion> motions;
+    private final javax.swing.Timer timer;
+
+    /**
+     * Obtiene el planificador de animaciones compartido.
+     *
+     * @return el planificador
+     */
+    public static synchronized Animator getAnimator() {
+        if (animatorSingleton == null) {
+            animatorSingleton = new Animator();
+        }
+        return animatorSingleton;
+    }
+
+    private Animator() {
+        this.motions = new LinkedHashMap<>();
+        this.timer = new javax.swing.Timer(1000 / FRAMES_PER_SECOND, event -> tick());
+        this.timer.setCoalesce(true);
+    }
+
+    /**
+     * Calcula la duración de un movimiento lento de la distancia indicada.
+     *
+     * @param distance la distancia en pixels
+     * @return la duración en milisegundos
+     */
+    public static int durationFor(int distance) {
+        return Math.abs(distance) * 1000 / PIXELS_PER_SECOND;
+    }
+
+    /**
+     * Anima el dibujo de un rectángulo desde una posición hasta su posición
+     * actual. Si el rectángulo ya se estaba moviendo, el nuevo movimiento sale
+     * desde donde estaba dibujado y el anterior se da por terminado.
+     *
+     * @param rectangle el rectángulo, ya en su posición final
+     * @param fromX la posición X desde donde se dibuja al empezar
+     * @param fromY la posición Y desde donde se dibuja al empezar
+     * @param milliseconds la duración del movimiento
+     * @return un future que se completa cuando termina el movimiento
+     */
+    public synchronized CompletableFuture<Void> move(Rectangle rectangle, int fromX, int fromY, int milliseconds) {
+        Motion previous = motions.remove(rectangle);
+        if (previous != null) {
+            fromX = previous.x;
+            fromY = previous.y;
+            previous.done.complete(null);
+        }
+        Motion motion = new Motion(rectangle, fromX, fromY, System.nanoTime(), milliseconds * 1_000_000L);
+        motions.put(rectangle, motion);
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+        return motion.done;
+    }
+
+    /**
+     * Indica si hay movimientos sin terminar.
+     *
+     * @return true si algún rectángulo se está moviendo
+     */
+    public synchronized boolean isAnimating() {
+        return !motions.isEmpty();
+    }
+
+    /**
+     * Avanza todos los movimientos un cuadro y completa los que terminaron.
+     */
+    private void tick() {
+        List<CompletableFuture<Void>> finished = new ArrayList<>();
+        synchronized (this) {
+            List<Renderer> frames = new ArrayList<>();
+            for (Motion motion : motions.values()) {
+                Renderer renderer = motion.rectangle.renderer();
+                if (!containsSame(frames, renderer)) {
+                    renderer.beginFrame();
+                    frames.add(renderer);
+                }
+            }
+            long now = System.nanoTime();
+            Iterator<Motion> pending = motions.values().iterator();
+            while (pending.hasNext()) {
+                Motion motion = pending.next();
+                Rectangle rectangle = motion.rectangle;
+                long elapsed = now - motion.start;
+                if (elapsed >= motion.duration) {
+                    rectangle.drawAt(rectangle.getXPosition(), rectangle.getYPosition());
+                    pending.remove();
+                    finished.add(motion.done);
+                    continue;
+                }
+                double progress = (double) elapsed / motion.duration;
+                motion.x = motion.fromX + (int) Math.round((rectangle.getXPosition() - motion.fromX) * progress);
+                motion.y = motion.fromY + (int) Math.round((rectangle.getYPosition() - motion.fromY) * progress);
+                rectangle.drawAt(motion.x, motion.y);
+            }
+            for (Renderer renderer : frames) {
+                renderer.commitFrame();
+            }
+            if (motions.isEmpty()) {
+                timer.stop();
+            }
+        }
+        for (CompletableFuture<Void> done : finished) {
+            done.complete(null);
+        }
+    }
+
+    private static boolean containsSame(List<Renderer> renderers, Renderer renderer) {
+        for (Renderer other : renderers) {
+            if (other == renderer) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Movimiento de un rectángulo: desde dónde sale, cuándo empezó, cuánto
+     * dura y dónde está dibujado ahora.
+     */
+    private static class Motion {
+        private final Rectangle rectangle;
+        private final int fromX;
+        private final int fromY;
+        private final long start;
+        private final long duration;
+        private final CompletableFuture<Void> done;
+        private int x;
+        private int y;
+
+        private Motion(Rectangle rectangle, int fromX, int fromY, long start, long duration) {
+            this.rectangle = rectangle;
+            this.fromX = fromX;
+            this.fromY = fromY;
+            this.start = start;
+            this.duration = duration;
+            this.done = new CompletableFuture<>();
+            this.x = fromX;
+            this.y = fromY;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+/**
+ * Tablero de bits para simular inclinaciones a gran velocidad.
+ *
+ * Guarda, para cada color, una máscara de 64 bits por fila (el bit c es la
+ * columna c), además de máscaras por fila de huecos y de fichas que no deslizan
+ * (hole, Fixed, Rough, Flying, Freelance). Las inclinaciones a izquierda y
+ * derecha compactan los bits de cada segmento entre bloqueos; arriba y abajo se
+ * hacen igual sobre la disposición transpuesta. Solo admite tableros de hasta
+ * 64 filas y 64 columnas.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class BitBoard {
+    private static final int COLORS = 16;
+    private static final int SMALL = 16; // hasta este tamaño se transpone bit a bit
+    private static final int PARALLEL_EXTRACT = 16; // desde aquí se comprime en paralelo
+
+    private final int h;
+    private final int w;
+    private final int activeColors;
+    private final int[] colorList;
+    private final int[] slots;
+    private final long[] planes;
+    private final Masks rowMasks;
+    private final Masks columnMasks;
+    private long[] transposed;
+    private long[] block;
+    private final long[] moves = new long[6];
+
+    /**
+     * Máscaras de bloqueos y huecos, que nunca cambian con una inclinación y
+     * por eso se comparten entre todas las copias de un tablero.
+     */
+    private static class Masks {
+        private final long[] blockers;
+        private final long[] holes;
+
+        private Masks(int lines) {
+            blockers = new long[lines];
+            holes = new long[lines];
+        }
+    }
+
+    /**
+     * Indica si un tablero de las dimensiones dadas cabe en un BitBoard.
+     *
+     * @param h alto del tablero
+     * @param w ancho del tablero
+     * @return true si ambas dimensiones son como máximo 64
+     */
+    public static boolean supports(int h, int w) {
+        return h > 0 && w > 0 && h <= 64 && w <= 64;
+    }
+
+    /**
+     * Construye el tablero de bits equivalente a un tablero compacto.
+     *
+     * @param board el tablero compacto
+     */
+    public BitBoard(PackedBoard board) {
+        this.h = board.getHeight();
+        this.w = board.getWidth();
+        if (!supports(h, w)) {
+            throw new IllegalArgumentException("El tablero no cabe en un BitBoard de 64x64");
+        }
+        this.rowMasks = new Masks(h);
+        this.columnMasks = new Masks(w);
+        int colors = 0;
+        for (int row = 0; row < h; row++) {
+            for (int column = 0; column < w; column++) {
+                byte cell = board.get(row, column);
+                if (cell != PackedBoard.EMPTY) {
+                    colors |= 1 << PackedBoard.color(cell);
+                }
+            }
+        }
+        this.activeColors = colors;
+        this.colorList = new int[Integer.bitCount(colors)];
+        this.slots = new int[COLORS];
+        for (int color = 0, i = 0; color < COLORS; color++) {
+            slots[color] = -1;
+            if ((colors & 1 << color) != 0) {
+                slots[color] = i;
+                colorList[i++] = color;
+            }
+        }
+        this.planes = new long[colorList.length * h];
+        for (int row = 0; row < h; row++) {
+            for (int column = 0; column < w; column++) {
+                byte cell = board.get(row, column);
+                if (cell == PackedBoard.EMPTY) {
+                    continue;
+                }
+                planes[slots[PackedBoard.color(cell)] * h + row] |= 1L << column;
+                int kind = PackedBoard.kind(cell);
+                if (kind != PackedBoard.FICHA) {
+                    rowMasks.blockers[row] |= 1L << column;
+                    columnMasks.blockers[column] |= 1L << row;
+                }
+                if (kind == PackedBoard.HOLE) {
+                    rowMasks.holes[row] |= 1L << column;
+                    columnMasks.holes[column] |= 1L << row;
+                }
+            }
+        }
+    }
+
+    private BitBoard(BitBoard other) {
+        this.h = other.h;
+        this.w = other.w;
+        this.activeColors = other.activeColors;
+        this.colorList = other.colorList;
+        this.slots = other.slots;
+        this.planes = other.planes.clone();
+        this.rowMasks = other.rowMasks;
+        this.columnMasks = other.columnMasks;
+    }
+
+    /**
+     * Crea una copia independiente del tablero.
+     *
+     * @return la copia del tablero
+     */
+    public BitBoard copy() {
+        return new BitBoard(this);
+    }
+
+    /**
+     * Copia el contenido de este tablero en otra copia del mismo tablero.
+     *
+     * @param target el tablero destino
+     */
+    public void copyInto(BitBoard target) {
+        System.arraycopy(planes, 0, target.planes, 0, planes.length);
+    }
+
+    /**
+     * Realiza una inclinación en la dirección especificada.
+     *
+     * @param direction la dirección de la inclinación ('l', 'r', 'u', 'd')
+     */
+    public void tilt(char direction) {
+        switch (Character.toLowerCase(direction)) {
+            case 'l':
+                compactLines(planes, h, w, rowMasks, true);
+                break;
+            case 'r':
+                compactLines(planes, h, w, rowMasks, false);
+                break;
+            case 'u':
+                tiltTransposed(true);
+                break;
+            case 'd':
+                tiltTransposed(false);
+                break;
+            default:
+                System.out.println("Dirección inválida");
+        }
+    }
+
+    /**
+     * Inclina hacia arriba o abajo transponiendo los planos de color, compactando
+     * las columnas como si fueran filas y volviendo a transponer.
+     *
+     * @param towardsStart true para inclinar hacia la fila 0
+     */
+    private void tiltTransposed(boolean towardsStart) {
+        if (transposed == null) {
+            transposed = new long[colorList.length * w];
+            block = new long[64];
+        }
+        long[] columns = transposed;
+        transpose(planes, h, columns, w);
+        compactLines(columns, w, h, columnMasks, towardsStart);
+        transpose(columns, w, planes, h);
+    }
+
+    /**
+     * Transpone los planos de color activos: el bit c de la línea l del origen
+     * pasa a ser el bit l de la línea c del destino.
+     *
+     * @param source los planos de origen, con lines líneas por color
+     * @param lines la cantidad de líneas de origen
+     * @param target los planos destino, con targetLines líneas por color
+     * @param targetLines la cantidad de líneas destino
+     */
+    private void transpose(long[] source, int lines, long[] target, int targetLines) {
+        for (int slot = 0; slot < colorList.length; slot++) {
+            int from = slot * lines;
+            int to = slot * targetLines;
+            if (lines <= SMALL && targetLines <= SMALL) {
+                for (int i = 0; i < targetLines; i++) {
+                    target[to + i] = 0;
+                }
+                for (int line = 0; line < lines; line++) {
+                    long bits = source[from + line];
+                    while (bits != 0) {
+                        target[to + Long.numberOfTrailingZeros(bits)] |= 1L << line;
+                        bits &= bits - 1;
+                    }
+                }
+                continue;
+            }
+            long[] block = this.block;
+            System.arraycopy(source, from, block, 0, lines);
+            for (int i = lines; i < 64; i++) {
+                block[i] = 0;
+            }
+            transpose64(block);
+            System.arraycopy(block, 0, target, to, targetLines);
+        }
+    }
+
+    /**
+     * Transpone en el lugar una matriz de 64x64 bits intercambiando bloques
+     * cada vez más pequeños (32, 16, ..., 1).
+     */
+    private static void transpose64(long[] a) {
+        long mask = 0x00000000FFFFFFFFL;
+        for (int j = 32; j != 0; j >>= 1, mask ^= mask << j) {
+            for (int k = 0; k < 64; k = ((k | j) + 1) & ~j) {
+                long swap = ((a[k] >>> j) ^ a[k | j]) & mask;
+                a[k] ^= swap << j;
+                a[k | j] ^= swap;
+            }
+        }
+    }
+
+    /**
+     * Compacta todas las líneas de unos planos de color.
+     *
+     * @param bits los planos de color
+     * @param lines la cantidad de líneas por color
+     * @param length la longitud de cada línea
+     * @param masks los bloqueos y huecos de cada línea
+     * @param towardsStart true para compactar hacia el bit 0
+     */
+    private void compactLines(long[] bits, int lines, int length, Masks masks, boolean towardsStart) {
+        for (int line = 0; line < lines; line++) {
+            long blockers = masks.blockers[line];
+            long holes = masks.holes[line];
+            long occupied = 0;
+            for (int slot = 0; slot < colorList.length; slot++) {
+                occupied |= bits[slot * lines + line];
+            }
+            occupied &= ~blockers;
+            if (occupied == 0) {
+                continue;
+            }
+            int start = 0;
+            while (start < length) {
+                long ahead = blockers & (-1L << start);
+                int end = ahead == 0 ? length : Long.numberOfTrailingZeros(ahead);
+                if (end > start) {
+                    boolean sinking = towardsStart
+                        ? start > 0 && (holes >>> (start - 1) & 1) != 0
+                        : end < length && (holes >>> end & 1) != 0;
+                    compactSegment(bits, lines, line, occupied & segment(start, end), start, end, towardsStart, sinking);
+                }
+                start = end + 1;
+            }
+        }
+    }
+
+    /**
+     * Compacta un segmento de una línea: cuenta sus fichas y las lleva, en el
+     * mismo orden, al extremo del segmento; si detrás de ese extremo hay un
+     * hueco las fichas caen y se eliminan.
+     */
+    private void compactSegment(long[] bits, int lines, int line, long occupied, int start, int end,
+                                boolean towardsStart, boolean sinking) {
+        if (occupied == 0) {
+            return;
+        }
+        int count = Long.bitCount(occupied);
+        int first = towardsStart ? start : end - count;
+        long target = segment(first, first + count);
+        if (!sinking && occupied == target) {
+            return;
+        }
+        boolean parallel = !sinking && count > PARALLEL_EXTRACT;
+        if (parallel) {
+            prepareExtract(occupied);
+        }
+        for (int slot = 0; slot < colorList.length; slot++) {
+            int index = slot * lines + line;
+            long plane = bits[index];
+            long moving = plane & occupied;
+            if (moving == 0) {
+                continue;
+            }
+            plane &= ~occupied;
+            if (!sinking) {
+                plane |= (parallel ? extractPrepared(moving) : extract(moving, occupied)) << first;
+            }
+            bits[index] = plane;
+        }
+    }
+
+    /**
+     * Precalcula los seis pasos de desplazamiento que juntan en los bits bajos
+     * los bits seleccionados por mask (compresión paralela de Hacker's Delight).
+     * Así cada plano de color del segmento se extrae con pocas operaciones fijas.
+     */
+    private void prepareExtract(long mask) {
+        long[] moves = this.moves;
+        long zeros = ~mask << 1;
+        for (int i = 0; i < 6; i++) {
+            long prefix = zeros ^ (zeros << 1);
+            prefix ^= prefix << 2;
+            prefix ^= prefix << 4;
+            prefix ^= prefix << 8;
+            prefix ^= prefix << 16;
+            prefix ^= prefix << 32;
+            long move = prefix & mask;
+            moves[i] = move;
+            mask = mask ^ move | (move >>> (1 << i));
+            zeros &= ~prefix;
+        }
+    }
+
+    /**
+     * Extrae los bits de value con los pasos calculados en prepareExtract.
+     */
+    private long extractPrepared(long value) {
+        long[] moves = this.moves;
+        for (int i = 0; i < 6; i++) {
+            long shifted = value & moves[i];
+            value = value ^ shifted | (shifted >>> (1 << i));
+        }
+        return value;
+    }
+
+    /**
+     * Extrae los bits de value seleccionados por mask y los junta en los bits
+     * bajos del resultado, conservando su orden (equivalente a PEXT).
+     */
+    private static long extract(long value, long mask) {
+        long result = 0;
+        while (value != 0) {
+            long lowest = value & -value;
+            result |= 1L << Long.bitCount(mask & (lowest - 1));
+            value ^= lowest;
+        }
+        return result;
+    }
+
+    /**
+     * Construye la máscara con los bits desde start (incluido) hasta end (excluido).
+     */
+    private static long segment(int start, int end) {
+        if (end <= start) {
+            return 0;
+        }
+        long upTo = end == 64 ? -1L : (1L << end) - 1;
+        return upTo & (-1L << start);
+    }
+
+    /**
+     * Cuenta las celdas cuyo contenido no coincide con el tablero objetivo,
+     * con las mismas reglas que PackedBoard.misPlacedTiles.
+     *
+     * @param goal el tablero objetivo, de las mismas dimensiones
+     * @return el número de fichas mal colocadas
+     */
+    public int misPlacedTiles(BitBoard goal) {
+        int misPlacedCount = 0;
+        for (int row = 0; row < h; row++) {
+            misPlacedCount += Long.bitCount(differentCells(goal, row));
+        }
+        return misPlacedCount;
+    }
+
+    /**
+     * Verifica si este tablero coincide con el tablero objetivo.
+     *
+     * @param goal el tablero objetivo, de las mismas dimensiones
+     * @return true si no hay fichas mal colocadas
+     */
+    public boolean isGoal(BitBoard goal) {
+        for (int row = 0; row < h; row++) {
+            if (differentCells(goal, row) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calcula la máscara de celdas de una fila cuyo color difiere del objetivo.
+     */
+    private long differentCells(BitBoard goal, int row) {
+        long different = 0;
+        for (int slot = 0; slot < colorList.length; slot++) {
+            int goalSlot = goal.slots[colorList[slot]];
+            long expected = goalSlot < 0 ? 0 : goal.planes[goalSlot * h + row];
+            different |= planes[slot * h + row] ^ expected;
+        }
+        for (int slot = 0; slot < goal.colorList.length; slot++) {
+            if (slots[goal.colorList[slot]] < 0) {
+                different |= goal.planes[slot * h + row];
+            }
+        }
+        return different;
+    }
+
+    /**
+     * Obtiene la máscara de colores presentes en este tablero.
+     *
+     * @return un bit por cada código de color presente
+     */
+    public int getActiveColors() {
+        return activeColors;
+    }
+
+    /**
+     * Convierte de nuevo el tablero a su representación compacta. Los bloqueos
+     * se toman del tablero original, ya que nunca se mueven.
+     *
+     * @param original el tablero compacto desde el que se construyó este
+     * @return un nuevo tablero compacto con la disposición actual
+     */
+    public PackedBoard toPackedBoard(PackedBoard original) {
+        PackedBoard board = new PackedBoard(h, w);
+        for (int row = 0; row < h; row++) {
+            long blockers = rowMasks.blockers[row];
+            for (int slot = 0; slot < colorList.length; slot++) {
+                int color = colorList[slot];
+                long bits = planes[slot * h + row] & ~blockers;
+                while (bits != 0) {
+                    int column = Long.numberOfTrailingZeros(bits);
+                    board.set(row, column, (byte) (PackedBoard.FICHA << 4 | color));
+                    bits &= bits - 1;
+                }
+            }
+            while (blockers != 0) {
+                int column = Long.numberOfTrailingZeros(blockers);
+                board.set(row, column, original.get(row, column));
+                blockers &= blockers - 1;
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.BitSet;
+
+/**
+ * Índice de las celdas que detienen una inclinación, por fila y por columna.
+ *
+ * Guarda en un BitSet por fila y otro por columna las celdas ocupadas por
+ * fichas que no deslizan (hueco, Fixed, Rough, Flying, Freelance), y aparte las
+ * que son huecos. Así, para saber dónde se detiene una ficha basta buscar el
+ * siguiente bit encendido de su línea (nextSetBit / previousSetBit), que
+ * recorre la línea de 64 en 64 celdas, en vez de revisar celda por celda.
+ *
+ * Puzzle lo construye una vez por tablero y lo actualiza en cada cambio de una
+ * celda (addTile, deleteTile, makeHole, relocate).
+ *
+ * @author Arteaga-Hurtado
+ */
+public class BlockerIndex {
+    private final BitSet[] rowBlockers;
+    private final BitSet[] columnBlockers;
+    private final BitSet[] rowHoles;
+
+    /**
+     * Construye el índice de un tablero de fichas.
+     *
+     * @param board el tablero, con null en las celdas vacías
+     */
+    public BlockerIndex(Tile[][] board) {
+        int h = board.length;
+        int w = board[0].length;
+        this.rowBlockers = new BitSet[h];
+        this.rowHoles = new BitSet[h];
+        this.columnBlockers = new BitSet[w];
+        for (int row = 0; row < h; row++) {
+            rowBlockers[row] = new BitSet(w);
+            rowHoles[row] = new BitSet(w);
+        }
+        for (int column = 0; column < w; column++) {
+            columnBlockers[column] = new BitSet(h);
+        }
+        for (int row = 0; row < h; row++) {
+            for (int column = 0; column < w; column++) {
+                update(row, column, board[row][column]);
+            }
+        }
+    }
+
+    /**
+     * Actualiza el índice después de que cambió el contenido de una celda.
+     *
+     * @param row la fila de la celda
+     * @param column la columna de la celda
+     * @param tile la ficha que quedó en la celda, o null si quedó vacía
+     */
+    public void update(int row, int column, Tile tile) {
+        boolean blocker = tile != null && tile.getKind().blocks();
+        rowBlockers[row].set(column, blocker);
+        columnBlockers[column].set(row, blocker);
+        rowHoles[row].set(column, blocker && tile.getKind().isHole());
+    }
+
+    /**
+     * Indica si en la celda hay un hueco.
+     *
+     * @param row la fila de la celda
+     * @param column la columna de la celda
+     * @return true si la celda es un hueco
+     */
+    public boolean isHole(int row, int column) {
+        return rowHoles[row].get(column);
+    }
+
+    /**
+     * Busca la siguiente celda que detiene una inclinación en una línea.
+     *
+     * @param line el índice de la fila (si horizontal) o de la columna
+     * @param horizontal true para una fila, false para una columna
+     * @param from la posición de la línea desde donde buscar
+     * @param forward true para buscar hacia posiciones mayores, false hacia menores
+     * @return la posición encontrada, o -1 si no hay ninguna
+     */
+    public int nextBlocker(int line, boolean horizontal, int from, boolean forward) {
+        BitSet blockers = horizontal ? rowBlockers[line] : columnBlockers[line];
+        return forward ? blockers.nextSetBit(from) : blockers.previousSetBit(from);
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Dónde y cómo se dibujan las fichas de un tablero: el renderer, la esquina
+ * superior izquierda del tablero en pixels y el tamaño de cada celda.
+ *
+ * Todas las fichas de un tablero comparten el mismo BoardView, así que las
+ * fichas solo guardan su fila y su columna y calculan sus pixels cuando se
+ * dibujan.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class BoardView {
+    private final Renderer renderer;
+    private final int originX;
+    private final int originY;
+    private final int cellWidth;
+    private final int cellHeight;
+
+    /**
+     * Crea la vista de un tablero.
+     *
+     * @param renderer donde se dibujan las fichas, o null para usar el Canvas
+     * @param originX la posición X de la esquina del tablero
+     * @param originY la posición Y de la esquina del tablero
+     * @param cellWidth el ancho de cada celda
+     * @param cellHeight el alto de cada celda
+     */
+    public BoardView(Renderer renderer, int originX, int originY, int cellWidth, int cellHeight) {
+        this.renderer = renderer;
+        this.originX = originX;
+        this.originY = originY;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+    }
+
+    public Renderer getRenderer() {
+        return renderer;
+    }
+
+    public int getCellWidth() {
+        return cellWidth;
+    }
+
+    public int getCellHeight() {
+        return cellHeight;
+    }
+
+    /**
+     * Obtiene la posición X en pixels de una columna.
+     *
+     * @param column la columna
+     * @return la posición X de la celda
+     */
+    public int x(int column) {
+        return originX + column * cellWidth;
+    }
+
+    /**
+     * Obtiene la posición Y en pixels de una fila.
+     *
+     * @param row la fila
+     * @return la posición Y de la celda
+     */
+    public int y(int row) {
+        return originY + row * cellHeight;
+    }
+
+    /**
+     * Obtiene la columna que corresponde a una posición X en pixels.
+     *
+     * @param x la posición X
+     * @return la columna
+     */
+    public int column(int x) {
+        return Math.floorDiv(x - originX, cellWidth);
+    }
+
+    /**
+     * Obtiene la fila que corresponde a una posición Y en pixels.
+     *
+     * @param y la posición Y
+     * @return la fila
+     */
+    public int row(int y) {
+        return Math.floorDiv(y - originY, cellHeight);
+    }
+}
@@ -1,7 +1,6 @@
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.List;
 import java.util.*;
 
 /**
@@ -14,7 +13,7 @@ import java.util.*;
  *
  * @version: 1.6 (shapes)
  */
-public class Canvas{
+public class Canvas implements Renderer{
     // Note: The implementation of this class (specifically the handling of
     // shape identity and colors) is slightly more complex than necessary. This
     // is done on purpose to keep the interface and instance fields of the
@@ -41,8 +40,22 @@ public class Canvas{
     private Graphics2D graphic;
     private Color backgroundColour;
     private Image canvasImage;
-    private List <Object> objects;
     private HashMap <Object,ShapeDescription> shapes;
+    private ShapeDescription first; // shapes in drawing order, linked
+    private ShapeDescription last;  // through ShapeDescription.next/previous
+    private int frameDepth;       // frames opened with beginFrame()
+    private int[] damaged;        // x, y, width, height of each changed area
+    private int damagedCount;     // areas in damaged not yet repainted
+    private ShapeDescription[][] buckets; // shapes touching each grid cell
+    private int[] bucketSizes;
+    private int bucketColumns;
+    private int bucketRows;
+    private ShapeDescription[] found; // shapes of the region being repainted
+    private long drawCount;       // drawing order, to keep what goes on top
+    private long regionCount;     // stamp of the region being repainted
+
+    // side in pixels of the grid cells of the spatial index
+    private static final int BUCKET_SIZE = 50;
     
     /**
      * Create a Canvas.
@@ -59,8 +72,16 @@ public class Canvas{
         canvas.setPreferredSize(new Dimension(width, height));
         backgroundColour = bgColour;
         frame.pack();
-        objects = new ArrayList <Object>();
         shapes = new HashMap <Object,ShapeDescription>();
+        damaged = new int[4 * 16];
+        bucketColumns = (width + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        bucketRows = (height + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        buckets = new ShapeDescription[bucketColumns * bucketRows][];
+        bucketSizes = new int[bucketColumns * bucketRows];
+        for(int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ShapeDescription[4];
+        }
+        found = new ShapeDescription[16];
     }
 
     /**
@@ -93,21 +114,277 @@ public class Canvas{
      // Note: this is a slightly backwards way of maintaining the shape
      // objects. It is carefully designed to keep the visible shape interfaces
      // in this project clean and simple for educational purposes.
-    public void draw(Object referenceObject, String color, Shape shape){
-        objects.remove(referenceObject);   // just in case it was already there
-        objects.add(referenceObject);      // add at the end
-        shapes.put(referenceObject, new ShapeDescription(shape, color));
-        redraw();
+    public synchronized void draw(Object referenceObject, String color, Shape shape){
+        forget(referenceObject);
+        ShapeDescription description = new ShapeDescription(shape, color, drawCount++);
+        shapes.put(referenceObject, description);
+        link(description);                 // add at the end
+        index(description);
+        changed(description.bounds);
     }
  
     /**
      * Erase a given shape's from the screen.
      * @param  referenceObject  the shape object to be erased 
      */
-    public void erase(Object referenceObject){
-        objects.remove(referenceObject);   // just in case it was already there
-        shapes.remove(referenceObject);
-        redraw();
+    public synchronized void erase(Object referenceObject){
+        forget(referenceObject);
+        changed(null);
+    }
+
+    /**
+     * Start a frame: shape changes are collected and the canvas is repainted
+     * only once, when the outermost frame is committed.
+     */
+    public synchronized void beginFrame(){
+        frameDepth++;
+    }
+
+    /**
+     * Finish a frame started with beginFrame(). When the outermost frame is
+     * committed, the canvas is repainted once if anything changed.
+     */
+    public synchronized void commitFrame(){
+        if(frameDepth == 0) {
+            return;
+        }
+        frameDepth--;
+        if(frameDepth == 0) {
+            repaintDamaged();
+        }
+    }
+
+    /**
+     * Remove a shape from the canvas, marking the area it covered as damaged.
+     */
+    private void forget(Object referenceObject){
+        ShapeDescription old = shapes.remove(referenceObject);
+        if(old != null) {
+            unlink(old);
+            unindex(old);
+            damage(old.bounds);
+        }
+    }
+
+    /**
+     * Add a shape at the end of the drawing order, on top of the others.
+     */
+    private void link(ShapeDescription description){
+        description.previous = last;
+        if(last == null) {
+            first = description;
+        } else {
+            last.next = description;
+        }
+        last = description;
+    }
+
+    /**
+     * Take a shape out of the drawing order.
+     */
+    private void unlink(ShapeDescription description){
+        if(description.previous == null) {
+            first = description.next;
+        } else {
+            description.previous.next = description.next;
+        }
+        if(description.next == null) {
+            last = description.previous;
+        } else {
+            description.next.previous = description.previous;
+        }
+        description.previous = null;
+        description.next = null;
+    }
+
+    /**
+     * Mark an area as damaged and repaint now, or at the end of the current
+     * frame if one is open.
+     */
+    private void changed(java.awt.Rectangle area){
+        if(area != null) {
+            damage(area);
+        }
+        if(frameDepth == 0) {
+            repaintDamaged();
+        }
+    }
+
+    /**
+     * Remember an area to repaint, growing the damage array if needed.
+     */
+    private void damage(java.awt.Rectangle area){
+        if(damagedCount * 4 == damaged.length) {
+            damaged = Arrays.copyOf(damaged, damaged.length * 2);
+        }
+        int at = damagedCount++ * 4;
+        damaged[at] = area.x;
+        damaged[at + 1] = area.y;
+        damaged[at + 2] = area.width;
+        damaged[at + 3] = area.height;
+    }
+
+    /**
+     * Add a shape to the grid cells its bounds touch, remembering where it
+     * went in each one so it can be taken out without searching.
+     */
+    private void index(ShapeDescription description){
+        int slot = 0;
+        for(int row = description.firstRow; row <= description.lastRow; row++) {
+            for(int column = description.firstColumn; column <= description.lastColumn; column++) {
+                int bucket = row * bucketColumns + column;
+                if(bucketSizes[bucket] == buckets[bucket].length) {
+                    buckets[bucket] = Arrays.copyOf(buckets[bucket], buckets[bucket].length * 2);
+                }
+                description.slots[slot++] = bucketSizes[bucket];
+                buckets[bucket][bucketSizes[bucket]++] = description;
+            }
+        }
+    }
+
+    /**
+     * Take a shape out of its grid cells, moving the last shape of each cell
+     * into the place it leaves.
+     */
+    private void unindex(ShapeDescription description){
+        int slot = 0;
+        for(int row = description.firstRow; row <= description.lastRow; row++) {
+            for(int column = description.firstColumn; column <= description.lastColumn; column++) {
+                int bucket = row * bucketColumns + column;
+                int at = description.slots[slot++];
+                int lastAt = --bucketSizes[bucket];
+                ShapeDescription moved = buckets[bucket][lastAt];
+                buckets[bucket][at] = moved;
+                buckets[bucket][lastAt] = null;
+                moved.slots[moved.slot(row, column)] = at;
+            }
+        }
+    }
+
+    private int bucketColumn(int x){
+        return Math.max(0, Math.min(bucketColumns - 1, Math.floorDiv(x, BUCKET_SIZE)));
+    }
+
+    private int bucketRow(int y){
+        return Math.max(0, Math.min(bucketRows - 1, Math.floorDiv(y, BUCKET_SIZE)));
+    }
+
+    /**
+     * Repaint only the damaged areas: each one is cleared and the shapes that
+     * intersect it, found through the grid, are drawn again in their original
+     * order. If the damage covers more than the whole canvas, it is cheaper to
+     * redraw everything. Nothing is allocated here, so animations do not
+     * produce garbage on every frame.
+     */
+    private void repaintDamaged(){
+        if(damagedCount == 0) {
+            return;
+        }
+        int width = canvas.getWidth();
+        int height = canvas.getHeight();
+        long area = 0;
+        for(int i = 0; i < damagedCount; i++) {
+            area += (long) damaged[i * 4 + 2] * damaged[i * 4 + 3];
+        }
+        if(area >= (long) width * height) {
+            damagedCount = 0;
+            redraw();
+            return;
+        }
+        Color original = graphic.getColor();
+        for(int i = 0; i < damagedCount; i++) {
+            int x = Math.max(0, damaged[i * 4]);
+            int y = Math.max(0, damaged[i * 4 + 1]);
+            int right = Math.min(width, damaged[i * 4] + damaged[i * 4 + 2]);
+            int bottom = Math.min(height, damaged[i * 4 + 1] + damaged[i * 4 + 3]);
+            if(right <= x || bottom <= y) {
+                continue;
+            }
+            graphic.setClip(x, y, right - x, bottom - y);
+            graphic.setColor(backgroundColour);
+            graphic.fillRect(x, y, right - x, bottom - y);
+            int count = shapesIn(x, y, right, bottom);
+            for(int j = 0; j < count; j++) {
+                found[j].draw(graphic);
+                found[j] = null;
+            }
+            canvas.repaint(x, y, right - x, bottom - y);
+        }
+        graphic.setClip(null);
+        graphic.setColor(original);
+        damagedCount = 0;
+    }
+
+    /**
+     * Put in found the shapes whose bounds intersect a region, in drawing
+     * order. A shape in several grid cells is taken only once, using the
+     * stamp of the region.
+     * @return how many shapes were found
+     */
+    private int shapesIn(int x, int y, int right, int bottom){
+        long stamp = ++regionCount;
+        int count = 0;
+        for(int row = bucketRow(y); row <= bucketRow(bottom - 1); row++) {
+            for(int column = bucketColumn(x); column <= bucketColumn(right - 1); column++) {
+                int bucket = row * bucketColumns + column;
+                for(int i = 0; i < bucketSizes[bucket]; i++) {
+                    ShapeDescription description = buckets[bucket][i];
+                    java.awt.Rectangle bounds = description.bounds;
+                    if(description.stamp == stamp || bounds.x >= right || bounds.y >= bottom
+                       || bounds.x + bounds.width <= x || bounds.y + bounds.height <= y) {
+                        continue;
+                    }
+                    description.stamp = stamp;
+                    if(count == found.length) {
+                        found = Arrays.copyOf(found, found.length * 2);
+                    }
+                    found[count++] = description;
+                }
+            }
+        }
+        sortByOrder(0, count - 1);
+        return count;
+    }
+
+    /**
+     * Sort found[low..high] by drawing order (quicksort, with insertion sort
+     * for short ranges).
+     */
+    private void sortByOrder(int low, int high){
+        while(high - low > 16) {
+            long pivot = found[(low + high) >>> 1].order;
+            int i = low;
+            int j = high;
+            while(i <= j) {
+                while(found[i].order < pivot) {
+                    i++;
+                }
+                while(found[j].order > pivot) {
+                    j--;
+                }
+                if(i <= j) {
+                    ShapeDescription swap = found[i];
+                    found[i++] = found[j];
+                    found[j--] = swap;
+                }
+            }
+            if(j - low < high - i) {
+                sortByOrder(low, j);
+                low = i;
+            } else {
+                sortByOrder(i, high);
+                high = j;
+            }
+        }
+        for(int i = low + 1; i <= high; i++) {
+            ShapeDescription description = found[i];
+            int j = i - 1;
+            while(j >= low && found[j].order > description.order) {
+                found[j + 1] = found[j];
+                j--;
+            }
+            found[j + 1] = description;
+        }
     }
 
     /**
@@ -115,31 +392,57 @@ public class Canvas{
      * @param  newColour   the new colour for the foreground of the Canvas 
      */
     public void setForegroundColor(String colorString){
+        graphic.setColor(colorFor(colorString));
+    }
+
+    /**
+     * Get the colour used for a colour name. Unknown names are drawn black.
+     * @param  colorString  the colour name
+     * @return the colour
+     */
+    public static Color colorFor(String colorString){
         if(colorString.equals("red"))
-            graphic.setColor(Color.red);
+            return Color.red;
         else if(colorString.equals("black"))
-            graphic.setColor(Color.black);
+            return Color.black;
         else if(colorString.equals("blue"))
-            graphic.setColor(Color.blue);
+            return Color.blue;
         else if(colorString.equals("yellow"))
-            graphic.setColor(Color.yellow);
+            return Color.yellow;
         else if(colorString.equals("green"))
-            graphic.setColor(Color.green);
+            return Color.green;
         else if(colorString.equals("magenta"))
-            graphic.setColor(Color.magenta);
+            return Color.magenta;
         else if(colorString.equals("white"))
-            graphic.setColor(Color.white);
+            return Color.white;
         else
-            graphic.setColor(Color.black);
+            return Color.black;
+    }
+
+    /**
+     * Draw a shape, outline and inside, in the given colour. Shared with
+     * other renderers so every backend paints shapes the same way.
+     * @param  graphic      where to draw
+     * @param  colorString  the colour name
+     * @param  shape        the shape to draw
+     */
+    public static void paint(Graphics2D graphic, String colorString, Shape shape){
+        graphic.setColor(colorFor(colorString));
+        graphic.draw(shape);
+        graphic.fill(shape);
     }
 
     /**
      * Wait for a specified number of milliseconds before finishing.
      * This provides an easy way to specify a small delay which can be
-     * used when producing animations.
+     * used when producing animations. Inside a frame nothing is shown until
+     * it is committed, so there is nothing to wait for.
      * @param  milliseconds  the number 
      */
     public void wait(int milliseconds){
+        if(frameDepth > 0) {
+            return;
+        }
         try{
             Thread.sleep(milliseconds);
         } catch (Exception e){
@@ -152,8 +455,8 @@ public class Canvas{
      */
     private void redraw(){
         erase();
-        for(Iterator i=objects.iterator(); i.hasNext(); ) {
-                       shapes.get(i.next()).draw(graphic);
+        for(ShapeDescription description = first; description != null; description = description.next) {
+            description.draw(graphic);
         }
         canvas.repaint();
     }
@@ -189,16 +492,39 @@ public class Canvas{
     private class ShapeDescription{
         private Shape shape;
         private String colorString;
+        private java.awt.Rectangle bounds; // includes the 1 pixel outline
+        private long order;
+        private ShapeDescription previous;
+        private ShapeDescription next;
+        private int firstColumn;   // grid cells the bounds touch
+        private int firstRow;
+        private int lastColumn;
+        private int lastRow;
+        private int[] slots;       // position in each of those grid cells
+        private long stamp;        // last region it was found in
 
-        public ShapeDescription(Shape shape, String color){
+        public ShapeDescription(Shape shape, String color, long order){
             this.shape = shape;
             colorString = color;
+            this.order = order;
+            bounds = shape.getBounds();
+            bounds.grow(1, 1);
+            firstColumn = bucketColumn(bounds.x);
+            lastColumn = bucketColumn(bounds.x + bounds.width - 1);
+            firstRow = bucketRow(bounds.y);
+            lastRow = bucketRow(bounds.y + bounds.height - 1);
+            slots = new int[(lastColumn - firstColumn + 1) * (lastRow - firstRow + 1)];
+        }
+
+        /**
+         * Index in slots of one of the grid cells the shape touches.
+         */
+        public int slot(int row, int column){
+            return (row - firstRow) * (lastColumn - firstColumn + 1) + column - firstColumn;
         }
 
         public void draw(Graphics2D graphic){
-            setForegroundColor(colorString);
-            graphic.draw(shape);
-            graphic.fill(shape);
+            paint(graphic, colorString, shape);
         }
     }
 
@@ -0,0 +1,77 @@
+/**
+ * Conjunto de valores long que varios hilos pueden usar a la vez.
+ *
+ * Reparte los valores entre varias franjas según los bits altos de cada valor;
+ * cada franja es un LongHashSet protegido por su propio candado, así que dos
+ * hilos solo compiten cuando añaden valores de la misma franja. Con hashes de
+ * Zobrist los valores se reparten de forma uniforme entre las franjas.
+ *
+ * Las franjas empiezan con la tabla más pequeña y crecen solas a medida que
+ * reciben valores, así que crear el conjunto para muchos hilos no reserva
+ * memoria para estados que quizá nunca se visiten.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class ConcurrentLongHashSet {
+    private final LongHashSet[] stripes;
+    private final int shift;
+
+    /**
+     * Crea un conjunto con al menos la cantidad de franjas indicada.
+     *
+     * @param concurrency la cantidad de hilos que lo usarán a la vez
+     */
+    public ConcurrentLongHashSet(int concurrency) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(1 << 16, concurrency * 16) - 1) * 2);
+        stripes = new LongHashSet[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new LongHashSet(0);
+        }
+        shift = 64 - Integer.numberOfTrailingZeros(count);
+    }
+
+    /**
+     * Añade un valor al conjunto.
+     *
+     * @param value el valor a añadir
+     * @return true si el valor no estaba en el conjunto
+     */
+    public boolean add(long value) {
+        LongHashSet stripe = stripe(value);
+        synchronized (stripe) {
+            return stripe.add(value);
+        }
+    }
+
+    /**
+     * Verifica si un valor está en el conjunto.
+     *
+     * @param value el valor a buscar
+     * @return true si el valor está en el conjunto
+     */
+    public boolean contains(long value) {
+        LongHashSet stripe = stripe(value);
+        synchronized (stripe) {
+            return stripe.contains(value);
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de valores del conjunto.
+     *
+     * @return la cantidad de valores
+     */
+    public long size() {
+        long size = 0;
+        for (LongHashSet stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private LongHashSet stripe(long value) {
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (value >>> shift)];
+    }
+}
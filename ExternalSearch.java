@@ -0,0 +1,423 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Búsqueda en anchura con las capas guardadas en disco, para espacios de
+ * estados que no caben en memoria.
+ *
+ * Usa detección diferida de repetidos: los sucesores de una capa se acumulan en
+ * un buffer con un tope en bytes, que al llenarse se ordena por hash, se deja
+ * sin repetidos y se escribe como un tramo. El buffer se reutiliza entre capas
+ * y solo crece hasta lo que necesita la capa (cuatro sucesores por estado), así
+ * que las capas chicas no reservan todo el tope. Al terminar la capa, los
+ * tramos se mezclan de a MERGE_FAN_IN por pasada (para no abrir todos a la
+ * vez) y al final con el archivo de estados visitados (también ordenado), y
+ * solo los estados nuevos forman la capa siguiente. Todos los recorridos son
+ * secuenciales (ver LayerFile). Como en PuzzleSolver, dos tableros con el mismo
+ * hash de Zobrist se consideran el mismo estado.
+ *
+ * El camino se reconstruye al final recorriendo las capas guardadas hacia
+ * atrás, buscando en cada una un tablero que se incline al siguiente.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class ExternalSearch {
+    private static final char[] DIRECTIONS = {'l', 'r', 'u', 'd'};
+    private static final int MERGE_FAN_IN = 16; // tramos abiertos a la vez al mezclar
+
+    private final PackedBoard start;
+    private final PackedBoard goal;
+    private final Path directory;
+    private final int cells;
+    private final int maxBufferStates;
+    private byte[] boards = new byte[0];
+    private long[] hashes = new long[0];
+    private int[] order = new int[0];
+    private final List<Path> files = new ArrayList<>();
+    private long nodesExpanded;
+
+    /**
+     * Crea una búsqueda en disco.
+     *
+     * @param start el tablero inicial
+     * @param goal el tablero final
+     * @param directory el directorio donde se guardan los archivos de capas
+     * @param bufferBytes la memoria máxima del buffer donde se ordenan los
+     *        sucesores antes de escribirlos en un tramo; cada sucesor ocupa sus
+     *        celdas, su hash y su índice (celdas + 12 bytes)
+     */
+    public ExternalSearch(PackedBoard start, PackedBoard goal, Path directory, long bufferBytes) {
+        this.cells = start.getHeight() * start.getWidth();
+        long states = bufferBytes / (cells + 12);
+        if (states < 1) {
+            throw new IllegalArgumentException("El buffer debe tener espacio para al menos un tablero");
+        }
+        this.start = start.copy();
+        this.goal = goal.copy();
+        this.directory = directory;
+        this.maxBufferStates = (int) Math.min(states, Integer.MAX_VALUE / cells);
+    }
+
+    /**
+     * Busca la secuencia mínima de inclinaciones. Los archivos creados se
+     * borran al terminar.
+     *
+     * @return las direcciones de la solución, o null si el tablero final no es
+     *         alcanzable
+     */
+    public char[] solve() throws IOException {
+        nodesExpanded = 0;
+        try {
+            if (start.equals(goal)) {
+                return new char[0];
+            }
+            byte[] startCells = new byte[cells];
+            start.store(startCells, 0);
+            List<Path> layers = new ArrayList<>();
+            Path layer = newFile("layer-0");
+            try (LayerFile.Writer writer = new LayerFile.Writer(layer)) {
+                writer.write(start.hash(), startCells, 0, cells);
+            }
+            layers.add(layer);
+            Path visited = newFile("visited-0");
+            Files.copy(layer, visited, StandardCopyOption.REPLACE_EXISTING);
+
+            for (int depth = 1; ; depth++) {
+                List<Path> runs = reduceRuns(expand(layer, depth), depth);
+                Path next = newFile("layer-" + depth);
+                long[] result = mergeRuns(runs, visited, next);
+                for (Path run : runs) {
+                    delete(run);
+                }
+                if (result[1] != 0) {
+                    return reconstruct(layers);
+                }
+                if (result[0] == 0) {
+                    return null;
+                }
+                Path merged = newFile("visited-" + depth);
+                mergeVisited(visited, next, merged);
+                delete(visited);
+                visited = merged;
+                layers.add(next);
+                layer = next;
+            }
+        } finally {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            files.clear();
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de estados expandidos por la última búsqueda.
+     *
+     * @return los estados expandidos
+     */
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * Expande una capa y escribe sus sucesores en tramos ordenados por hash.
+     */
+    private List<Path> expand(Path layer, int depth) throws IOException {
+        reserve(Math.max(1, Math.min(maxBufferStates, LayerFile.count(layer, cells) * DIRECTIONS.length)));
+        int bufferStates = hashes.length;
+        List<Path> runs = new ArrayList<>();
+        int size = 0;
+        PackedBoard state = new PackedBoard(start.getHeight(), start.getWidth());
+        PackedBoard child = state.copy();
+        try (LayerFile.Reader reader = new LayerFile.Reader(layer, cells)) {
+            while (reader.advance()) {
+                reader.load(state);
+                nodesExpanded++;
+                for (char direction : DIRECTIONS) {
+                    state.copyInto(child);
+                    child.tilt(direction);
+                    if (size == bufferStates) {
+                        runs.add(writeRun(size, depth, runs.size()));
+                        size = 0;
+                    }
+                    child.store(boards, size * cells);
+                    hashes[size++] = child.hash();
+                }
+            }
+        }
+        if (size > 0) {
+            runs.add(writeRun(size, depth, runs.size()));
+        }
+        return runs;
+    }
+
+    /**
+     * Agranda el buffer para que quepan los sucesores indicados. Crece al
+     * menos al doble para no volver a reservar en cada capa, sin pasar del
+     * tope.
+     */
+    private void reserve(long states) {
+        if (states <= hashes.length) {
+            return;
+        }
+        int capacity = (int) Math.min(maxBufferStates, Math.max(states, 2L * hashes.length));
+        boards = new byte[capacity * cells];
+        hashes = new long[capacity];
+        order = new int[capacity];
+    }
+
+    /**
+     * Ordena el buffer por hash y lo escribe sin repetidos.
+     */
+    private Path writeRun(int size, int depth, int number) throws IOException {
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        sort(hashes, order, 0, size - 1);
+        Path run = newFile("run-" + depth + "-" + number);
+        try (LayerFile.Writer writer = new LayerFile.Writer(run)) {
+            for (int i = 0; i < size; i++) {
+                int index = order[i];
+                if (i > 0 && hashes[index] == hashes[order[i - 1]]) {
+                    continue;
+                }
+                writer.write(hashes[index], boards, index * cells, cells);
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Mezcla los tramos de una capa de a MERGE_FAN_IN por pasada, sin
+     * repetidos, hasta que quedan como mucho MERGE_FAN_IN. Los tramos
+     * mezclados se borran.
+     *
+     * @return los tramos que quedan
+     */
+    private List<Path> reduceRuns(List<Path> runs, int depth) throws IOException {
+        for (int pass = 0; runs.size() > MERGE_FAN_IN; pass++) {
+            List<Path> merged = new ArrayList<>();
+            for (int from = 0; from < runs.size(); from += MERGE_FAN_IN) {
+                List<Path> group = runs.subList(from, Math.min(runs.size(), from + MERGE_FAN_IN));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                Path run = newFile("run-" + depth + "-" + pass + "-" + merged.size());
+                mergeSorted(group, run);
+                for (Path input : group) {
+                    delete(input);
+                }
+                merged.add(run);
+            }
+            runs = merged;
+        }
+        return runs;
+    }
+
+    /**
+     * Une varios tramos ordenados en uno solo, sin repetidos.
+     */
+    private void mergeSorted(List<Path> runs, Path merged) throws IOException {
+        LayerFile.Reader[] readers = new LayerFile.Reader[runs.size()];
+        boolean[] live = new boolean[readers.length];
+        try (LayerFile.Writer writer = new LayerFile.Writer(merged)) {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new LayerFile.Reader(runs.get(i), cells);
+                live[i] = readers[i].advance();
+            }
+            boolean first = true;
+            long last = 0;
+            for (int min = smallest(readers, live); min >= 0; min = smallest(readers, live)) {
+                LayerFile.Reader reader = readers[min];
+                if (first || reader.hash() != last) {
+                    first = false;
+                    last = reader.hash();
+                    writer.write(last, reader.cells(), 0, cells);
+                }
+                live[min] = reader.advance();
+            }
+        } finally {
+            for (LayerFile.Reader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene el lector vivo con el menor hash.
+     *
+     * @return su posición, o -1 si ya no queda ninguno
+     */
+    private static int smallest(LayerFile.Reader[] readers, boolean[] live) {
+        int min = -1;
+        for (int i = 0; i < readers.length; i++) {
+            if (live[i] && (min < 0 || readers[i].hash() < readers[min].hash())) {
+                min = i;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Mezcla los tramos de una capa y quita los estados ya visitados.
+     *
+     * @return la cantidad de estados nuevos y 1 si entre ellos está el final
+     */
+    private long[] mergeRuns(List<Path> runs, Path visited, Path next) throws IOException {
+        LayerFile.Reader[] readers = new LayerFile.Reader[runs.size()];
+        boolean[] live = new boolean[readers.length];
+        LayerFile.Reader seen = new LayerFile.Reader(visited, cells);
+        try (LayerFile.Writer writer = new LayerFile.Writer(next)) {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new LayerFile.Reader(runs.get(i), cells);
+                live[i] = readers[i].advance();
+            }
+            boolean seenLive = seen.advance();
+            boolean first = true;
+            long last = 0;
+            while (true) {
+                int min = smallest(readers, live);
+                if (min < 0) {
+                    return new long[] {writer.getCount(), 0};
+                }
+                LayerFile.Reader reader = readers[min];
+                long hash = reader.hash();
+                if (first || hash != last) {
+                    first = false;
+                    last = hash;
+                    while (seenLive && seen.hash() < hash) {
+                        seenLive = seen.advance();
+                    }
+                    if (!seenLive || seen.hash() != hash) {
+                        writer.write(hash, reader.cells(), 0, cells);
+                        if (hash == goal.hash()) {
+                            return new long[] {writer.getCount(), 1};
+                        }
+                    }
+                }
+                live[min] = reader.advance();
+            }
+        } finally {
+            seen.close();
+            for (LayerFile.Reader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Une el archivo de visitados con una capa nueva, ambos ordenados.
+     */
+    private void mergeVisited(Path visited, Path layer, Path merged) throws IOException {
+        try (LayerFile.Reader left = new LayerFile.Reader(visited, cells);
+             LayerFile.Reader right = new LayerFile.Reader(layer, cells);
+             LayerFile.Writer writer = new LayerFile.Writer(merged)) {
+            boolean leftLive = left.advance();
+            boolean rightLive = right.advance();
+            while (leftLive || rightLive) {
+                if (!rightLive || leftLive && left.hash() < right.hash()) {
+                    writer.write(left.hash(), left.cells(), 0, cells);
+                    leftLive = left.advance();
+                } else {
+                    writer.write(right.hash(), right.cells(), 0, cells);
+                    rightLive = right.advance();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconstruye el camino desde el inicio hasta el final buscando, capa por
+     * capa hacia atrás, un tablero que se incline al tablero siguiente.
+     */
+    private char[] reconstruct(List<Path> layers) throws IOException {
+        char[] path = new char[layers.size()];
+        PackedBoard target = goal.copy();
+        PackedBoard state = target.copy();
+        PackedBoard child = target.copy();
+        for (int depth = layers.size() - 1; depth >= 0; depth--) {
+            boolean found = false;
+            try (LayerFile.Reader reader = new LayerFile.Reader(layers.get(depth), cells)) {
+                while (!found && reader.advance()) {
+                    reader.load(state);
+                    for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                        state.copyInto(child);
+                        child.tilt(DIRECTIONS[direction]);
+                        if (child.hash() == target.hash()) {
+                            path[depth] = DIRECTIONS[direction];
+                            state.copyInto(target);
+                            found = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            if (!found) {
+                throw new IllegalStateException("No se encontró el predecesor en la capa " + depth);
+            }
+        }
+        return path;
+    }
+
+    private Path newFile(String name) {
+        Path file = directory.resolve(name + ".layer");
+        files.add(file);
+        return file;
+    }
+
+    private void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        files.remove(file);
+    }
+
+    /**
+     * Ordena los índices de order según el hash al que apuntan (quicksort con
+     * inserción para tramos cortos), sin crear objetos.
+     */
+    private static void sort(long[] hashes, int[] order, int low, int high) {
+        while (high - low > 16) {
+            long pivot = hashes[order[(low + high) >>> 1]];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (hashes[order[i]] < pivot) {
+                    i++;
+                }
+                while (hashes[order[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+            if (j - low < high - i) {
+                sort(hashes, order, low, j);
+                low = i;
+            } else {
+                sort(hashes, order, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            int index = order[i];
+            long hash = hashes[index];
+            int j = i - 1;
+            while (j >= low && hashes[order[j]] > hash) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+}
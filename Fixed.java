@@ -11,6 +11,18 @@ public class Fixed extends Tile {
      */
     public Fixed(int width, int height, int xPosition, int yPosition) {
         super(width, height, xPosition, yPosition, "esmerald", 'F');
-        setTypet("Fixed");
+        setKind(TileKind.FIXED);
+    }
+
+    /**
+     * Constructor para crear una ficha Fixed en una celda de un tablero.
+     *
+     * @param row         Fila de la ficha.
+     * @param column      Columna de la ficha.
+     * @param board       Vista del tablero donde se dibuja la ficha.
+     */
+    public Fixed(int row, int column, BoardView board) {
+        super(row, column, "esmerald", 'F', board);
+        setKind(TileKind.FIXED);
     }
 }
\ No newline at end of file
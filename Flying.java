@@ -18,6 +18,18 @@ public class Flying extends Tile
      */
     public Flying(int width, int height, int xPosition, int yPosition) {
         super(width, height, xPosition, yPosition, "gray", 'l');
-        setTypet("Flying");
+        setKind(TileKind.FLYING);
+    }
+
+    /**
+     * Constructor para crear una ficha Flying en una celda de un tablero.
+     *
+     * @param row         Fila de la ficha.
+     * @param column      Columna de la ficha.
+     * @param board       Vista del tablero donde se dibuja la ficha.
+     */
+    public Flying(int row, int column, BoardView board) {
+        super(row, column, "gray", 'l', board);
+        setKind(TileKind.FLYING);
     }
 }
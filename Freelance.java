@@ -18,6 +18,18 @@ public class Freelance extends Tile
      */
     public Freelance(int width, int height, int xPosition, int yPosition) {
         super(width, height, xPosition, yPosition, "gray", 'f');
-        setTypet("Freelance");
+        setKind(TileKind.FREELANCE);
+    }
+
+    /**
+     * Constructor para crear una ficha Freelance en una celda de un tablero.
+     *
+     * @param row         Fila de la ficha.
+     * @param column      Columna de la ficha.
+     * @param board       Vista del tablero donde se dibuja la ficha.
+     */
+    public Freelance(int row, int column, BoardView board) {
+        super(row, column, "gray", 'f', board);
+        setKind(TileKind.FREELANCE);
     }
 }
\ No newline at end of file
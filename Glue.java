@@ -1,99 +1,122 @@
-
 import java.util.ArrayList;
-import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
 /**
  * Clase que representa el pegamento en el juego de rompecabezas.
  * Maneja las operaciones relacionadas con la adhesión y separación de fichas.
+ *
+ * Los grupos de fichas pegadas se guardan por celda en un GlueGroups
+ * (union-find), así que verificar si una ficha está pegada, buscar su grupo o
+ * unir dos grupos no recorre los demás grupos.
+ *
+ * Cada Puzzle tiene su propio Glue, así que varios puzzles pueden convivir en
+ * el mismo programa (o resolverse en paralelo) sin compartir pegamento.
  */
 public class Glue {
-     private static ArrayList<ArrayList<Tile>> gluedGroups = new ArrayList<>();
-     private static Map<Tile, Rectangle> glueVisuals = new HashMap<>();
+     private final GlueGroups gluedGroups;
+     private final Map<Tile, Rectangle> glueVisuals;
+     private final Renderer renderer;
+
+    /**
+     * Crea el pegamento de un tablero sin fichas pegadas.
+     *
+     * @param h alto del tablero
+     * @param w ancho del tablero
+     */
+    public Glue(int h, int w) {
+        this(h, w, null);
+    }
+
+    /**
+     * Crea el pegamento de un tablero sin fichas pegadas, que dibuja sus marcas
+     * en el renderer indicado.
+     *
+     * @param h alto del tablero
+     * @param w ancho del tablero
+     * @param renderer donde se dibuja el pegamento, o null para usar el Canvas
+     */
+    public Glue(int h, int w, Renderer renderer) {
+        this.gluedGroups = new GlueGroups(h, w);
+        this.glueVisuals = new HashMap<>();
+        this.renderer = renderer;
+    }
 
-    public Glue() {
-        this.gluedGroups = new ArrayList<>();
+    /**
+     * Obtiene los grupos de celdas pegadas.
+     *
+     * @return los grupos de pegamento
+     */
+    GlueGroups getGroups() {
+        return gluedGroups;
     }
 
 /**
  * Añade pegamento a la ficha en la posición especificada.
- * Verifica si la ficha ya está pegada y gestiona los grupos de pegamento.
+ * La ficha queda pegada a sus fichas adyacentes, uniendo sus grupos si ya
+ * estaban pegadas. Las fichas Freelance no se pegan.
  *
- * @param tile la ficha a pegar
- * @param adjacents las fichas adyacentes a considerar para el pegado
+ * @param board el tablero de la ficha
+ * @param row la fila de la ficha a pegar
+ * @param column la columna de la ficha a pegar
  */
-public static void addGlue(Tile tile, ArrayList<Tile> adjacents) {
-   
-    if (isGlued(tile)) {
+public void addGlue(Tile[][] board, int row, int column) {
+    if (row < 0 || row >= board.length || column < 0 || column >= board[0].length) {
+        System.out.println("La posición no es parte del tablero");
+        return;
+    }
+    Tile tile = board[row][column];
+    if (tile == null) {
+        System.out.println("No hay ficha en la posición indicada.");
+        return;
+    }
+    if (gluedGroups.isGlued(row, column)) {
         System.out.println("La ficha ya está pegada");
         return;
     }
-    
-    
-    if (tile.getTypet().equals("Freelance")) {
+    if (!tile.getKind().isGlueable()) {
         System.out.println("Freelance no puede ser pegada");
         return;
     }
 
-    ArrayList<ArrayList<Tile>> mergeGroup = new ArrayList<>();
-    ArrayList<Tile> finalGroup = new ArrayList<>();
-    finalGroup.add(tile);
-
-   
-    ArrayList<Tile> freelancesToRemove = new ArrayList<>();
-
-
-    for (Tile adjacentTile : adjacents) {
-      
-        if (adjacentTile.getTypet().equals("Freelance")) {
-            freelancesToRemove.add(adjacentTile); 
-        } else {
-          
-            if (isGlued(adjacentTile)) {
-                for (ArrayList<Tile> group : gluedGroups) {
-                    if (group.contains(adjacentTile)) {
-                        mergeGroup.add(group);
-                        break;
-                    }
-                }
-            } else {
-                finalGroup.add(adjacentTile); 
-            }
+    gluedGroups.glue(row, column);
+    int[][] neighbours = {{row - 1, column}, {row + 1, column}, {row, column - 1}, {row, column + 1}};
+    for (int[] neighbour : neighbours) {
+        int adjacentRow = neighbour[0];
+        int adjacentColumn = neighbour[1];
+        if (adjacentRow < 0 || adjacentRow >= board.length || adjacentColumn < 0 || adjacentColumn >= board[0].length) {
+            continue;
         }
+        Tile adjacentTile = board[adjacentRow][adjacentColumn];
+        if (adjacentTile == null || !adjacentTile.getKind().isGlueable()) {
+            continue;
+        }
+        gluedGroups.glue(adjacentRow, adjacentColumn);
+        gluedGroups.union(row, column, adjacentRow, adjacentColumn);
     }
-
-  
-    adjacents.removeAll(freelancesToRemove);
-
- 
-    for (ArrayList<Tile> group : mergeGroup) {
-        finalGroup.addAll(group);
-    }
-
-
-    gluedGroups.removeAll(mergeGroup);
-    gluedGroups.add(finalGroup);
     showGlue(tile);
 }
 
     /**
      * Elimina el pegamento de la ficha especificada y actualiza los grupos de pegamento.
      *
-     * @param tile la ficha a la que se le eliminará el pegamento
-     * @param adjacents las fichas adyacentes de la ficha
+     * @param board el tablero de la ficha
+     * @param row la fila de la ficha
+     * @param column la columna de la ficha
      */
-    public static void deleteGlue(Tile tile, ArrayList<Tile> adjacents) {
-        if (!isGlued(tile)) {
+    public void deleteGlue(Tile[][] board, int row, int column) {
+        if (row < 0 || row >= board.length || column < 0 || column >= board[0].length) {
+            System.out.println("La posición no es parte del tablero");
+            return;
+        }
+        if (!isGlued(row, column)) {
             System.out.println("La ficha no está pegada");
             return;
         }
 
-        ArrayList<Tile> originalGlueGroup = getGlueGroup(tile);
-        if (originalGlueGroup != null) {
-            originalGlueGroup.remove(tile);
+        gluedGroups.remove(row, column);
+        if (glueVisuals.containsKey(board[row][column])) {
+            hideGlue(board[row][column]);
         }
-
-        // Opcional: Aquí podrías reordenar los grupos en base a las fichas adyacentes después de quitar el pegamento
     }
 
     /**
@@ -102,40 +125,146 @@ public static void addGlue(Tile tile, ArrayList<Tile> adjacents) {
      * @param tile la ficha a verificar
      * @return true si la ficha está pegada, false en caso contrario
      */
-    public static boolean isGlued(Tile tile) {
-        for (ArrayList<Tile> group : gluedGroups) {
-            if (group.contains(tile)) {
-                return true;
+    public boolean isGlued(Tile tile) {
+        return tile != null && isGlued(tile.getRow(), tile.getColumn());
+    }
+
+    /**
+     * Verifica si la celda especificada está pegada.
+     *
+     * @param row la fila de la celda
+     * @param column la columna de la celda
+     * @return true si la celda está pegada, false en caso contrario
+     */
+    public boolean isGlued(int row, int column) {
+        return row >= 0 && row < gluedGroups.getHeight()
+            && column >= 0 && column < gluedGroups.getWidth() && gluedGroups.isGlued(row, column);
+    }
+
+    /**
+     * Obtiene los grupos de fichas pegadas del tablero.
+     *
+     * @param board el tablero de las fichas
+     * @return una lista con las fichas de cada grupo
+     */
+    public ArrayList<ArrayList<Tile>> getGlueGroups(Tile[][] board) {
+        ArrayList<ArrayList<Tile>> groups = new ArrayList<>();
+        int w = board[0].length;
+        Map<Integer, ArrayList<Tile>> byGroup = new HashMap<>();
+        for (int row = 0; row < board.length; row++) {
+            for (int column = 0; column < w; column++) {
+                int group = gluedGroups.group(row, column);
+                if (group >= 0 && !byGroup.containsKey(group)) {
+                    ArrayList<Tile> tiles = new ArrayList<>();
+                    for (int cell : gluedGroups.members(row, column)) {
+                        tiles.add(board[cell / w][cell % w]);
+                    }
+                    byGroup.put(group, tiles);
+                    groups.add(tiles);
+                }
             }
         }
-        return false;
+        return groups;
+    }
+
+    /**
+     * Actualiza el pegamento cuando una ficha se mueve a una celda vacía.
+     *
+     * @param tile la ficha que se movió
+     * @param row la fila de origen
+     * @param column la columna de origen
+     * @param toRow la fila de destino
+     * @param toColumn la columna de destino
+     */
+    public void moveTile(Tile tile, int row, int column, int toRow, int toColumn) {
+        if (!isGlued(row, column)) {
+            return;
+        }
+        gluedGroups.move(row, column, toRow, toColumn);
+        Rectangle tinyRec = glueVisuals.get(tile);
+        if (tinyRec != null) {
+            BoardView view = tile.getBoard();
+            tinyRec.animateTo(view.x(toColumn) + 20, view.y(toRow) + 20, Animator.MOVE_MILLIS);
+        }
     }
 
     /**
-     * Obtiene el grupo de pegamento que contiene la ficha especificada.
+     * Actualiza el pegamento después de mover varias fichas a la vez.
      *
-     * @param tile la ficha a buscar
-     * @return el grupo de pegamento que contiene la ficha, o null si no está pegada
+     * @param board el tablero antes del movimiento
+     * @param destination la nueva celda de cada celda, o -1 si su ficha salió
+     *        del tablero
      */
-    private static ArrayList<Tile> getGlueGroup(Tile tile) {
-        for (ArrayList<Tile> group : gluedGroups) {
-            if (group.contains(tile)) {
-                return group;
+    public void relocate(Tile[][] board, int[] destination) {
+        gluedGroups.relocate(destination);
+        int w = board[0].length;
+        for (int row = 0; row < board.length; row++) {
+            for (int column = 0; column < w; column++) {
+                Rectangle tinyRec = glueVisuals.get(board[row][column]);
+                if (tinyRec == null) {
+                    continue;
+                }
+                int target = destination[row * w + column];
+                if (target < 0) {
+                    tinyRec.makeInvisible();
+                    glueVisuals.remove(board[row][column]);
+                } else if (target != row * w + column) {
+                    BoardView view = board[row][column].getBoard();
+                    tinyRec.animateTo(view.x(target % w) + 20, view.y(target / w) + 20, Animator.MOVE_MILLIS);
+                }
             }
         }
-        return null;
     }
+
+    /**
+     * Indica si no hay ninguna ficha pegada.
+     *
+     * @return true si no hay fichas pegadas
+     */
+    public boolean isEmpty() {
+        return gluedGroups.isEmpty();
+    }
+
+    /**
+     * Despega todas las fichas y oculta sus marcas.
+     */
+    public void clear() {
+        for (Rectangle tinyRec : glueVisuals.values()) {
+            tinyRec.makeInvisible();
+        }
+        glueVisuals.clear();
+        gluedGroups.clear();
+    }
+
+    /**
+     * Quita el pegamento de una ficha que salió del tablero.
+     *
+     * @param tile la ficha eliminada
+     * @param row la fila de la ficha
+     * @param column la columna de la ficha
+     */
+    public void removeTile(Tile tile, int row, int column) {
+        if (!isGlued(row, column)) {
+            return;
+        }
+        gluedGroups.remove(row, column);
+        Rectangle tinyRec = glueVisuals.remove(tile);
+        if (tinyRec != null) {
+            tinyRec.makeInvisible();
+        }
+    }
+
     /**
      * Muestra el pegamento en la ficha en la posición especificada.
      *
      * @param tile la ficha a la que se añadirá el pegamento
      */
-    public static void showGlue(Tile tile) {
+    public void showGlue(Tile tile) {
         if (tile != null) {
             int x = tile.getXPosition() + 20;
             int y = tile.getYPosition() + 20;
 
-            Rectangle tinyRec = new Rectangle(10, 10, x, y, "black");
+            Rectangle tinyRec = new Rectangle(10, 10, x, y, "black", renderer);
             tinyRec.makeVisible();
 
             glueVisuals.put(tile, tinyRec); // Almacena la referencia del rectángulo
@@ -149,7 +278,7 @@ public static void addGlue(Tile tile, ArrayList<Tile> adjacents) {
      *
      * @param tile la ficha de la que se eliminará el pegamento
      */
-    public static void hideGlue(Tile tile) {
+    public void hideGlue(Tile tile) {
         if (tile != null && glueVisuals.containsKey(tile)) {
             Rectangle tinyRec = glueVisuals.get(tile);
             tinyRec.makeInvisible();
@@ -0,0 +1,463 @@
+import java.util.Arrays;
+
+/**
+ * Grupos de fichas pegadas de un tablero, como conjuntos disjuntos por celda.
+ *
+ * Cada celda pegada apunta a una posición (slot) de un union-find con
+ * compresión de caminos y unión por rango, así que saber si una celda está
+ * pegada, encontrar su grupo o unir dos grupos cuesta casi O(1). Los slots de
+ * un mismo grupo forman además una lista circular doblemente enlazada, para
+ * recorrer los miembros de un grupo sin revisar todo el tablero.
+ *
+ * Las celdas y los slots están separados para que mover una ficha pegada sea
+ * solo cambiar a qué celda apunta su slot.
+ *
+ * Al despegar una celda, el resto de su grupo se recorre en anchura (solo ese
+ * grupo) siguiendo las celdas vecinas; si quedó partido, cada parte pasa a ser
+ * un grupo propio.
+ *
+ * Los slots despegados pasan a una lista libre (enlazada por next) y glue los
+ * vuelve a usar, así que los arreglos no crecen con cada ciclo de pegar y
+ * despegar. Antes de liberar un slot, el resto de su grupo se vuelve a colgar
+ * de un miembro vivo para que nadie lo tenga como padre.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class GlueGroups {
+    private static final int NONE = -1;
+
+    private final int h;
+    private final int w;
+    private final int[] cellSlot;
+    private int[] slotCell;
+    private int[] parent;
+    private int[] rank;
+    private int[] size;
+    private int[] next;
+    private int[] previous;
+    private int[] mark;
+    private int slots;
+    private int free = NONE;
+    private int glued;
+    private int stamp;
+
+    /**
+     * Crea los grupos de un tablero sin fichas pegadas.
+     *
+     * @param h alto del tablero
+     * @param w ancho del tablero
+     */
+    public GlueGroups(int h, int w) {
+        this(h, w, new int[h * w]);
+        Arrays.fill(cellSlot, NONE);
+        int capacity = 16;
+        slotCell = new int[capacity];
+        parent = new int[capacity];
+        rank = new int[capacity];
+        size = new int[capacity];
+        next = new int[capacity];
+        previous = new int[capacity];
+        mark = new int[capacity];
+    }
+
+    private GlueGroups(int h, int w, int[] cellSlot) {
+        this.h = h;
+        this.w = w;
+        this.cellSlot = cellSlot;
+    }
+
+    /**
+     * Crea una copia independiente de los grupos. Solo copia arreglos de
+     * enteros, sin objetos por ficha.
+     *
+     * @return la copia de los grupos
+     */
+    public GlueGroups copy() {
+        GlueGroups copy = new GlueGroups(h, w, cellSlot.clone());
+        copy.slotCell = slotCell.clone();
+        copy.parent = parent.clone();
+        copy.rank = rank.clone();
+        copy.size = size.clone();
+        copy.next = next.clone();
+        copy.previous = previous.clone();
+        copy.mark = new int[mark.length];
+        copy.slots = slots;
+        copy.free = free;
+        copy.glued = glued;
+        return copy;
+    }
+
+    /**
+     * Despega todas las celdas. Los arreglos se conservan para volver a pegar
+     * sin crecerlos.
+     */
+    public void clear() {
+        Arrays.fill(cellSlot, NONE);
+        slots = 0;
+        free = NONE;
+        glued = 0;
+    }
+
+    public int getHeight() {
+        return h;
+    }
+
+    public int getWidth() {
+        return w;
+    }
+
+    /**
+     * Indica si no hay ninguna celda pegada.
+     *
+     * @return true si no hay celdas pegadas
+     */
+    public boolean isEmpty() {
+        return glued == 0;
+    }
+
+    /**
+     * Indica si la celda está pegada.
+     *
+     * @param row la fila de la celda
+     * @param column la columna de la celda
+     * @return true si la celda pertenece a un grupo
+     */
+    public boolean isGlued(int row, int column) {
+        return cellSlot[row * w + column] != NONE;
+    }
+
+    /**
+     * Obtiene el identificador del grupo de una celda. Dos celdas están en el
+     * mismo grupo si y solo si tienen el mismo identificador.
+     *
+     * @param row la fila de la celda
+     * @param column la columna de la celda
+     * @return el identificador del grupo, o -1 si la celda no está pegada
+     */
+    public int group(int row, int column) {
+        int slot = cellSlot[row * w + column];
+        return slot == NONE ? NONE : find(slot);
+    }
+
+    /**
+     * Obtiene la cantidad de celdas del grupo de una celda.
+     *
+     * @param row la fila de la celda
+     * @param column la columna de la celda
+     * @return el tamaño del grupo, o 0 si la celda no está pegada
+     */
+    public int groupSize(int row, int column) {
+        int root = group(row, column);
+        return root == NONE ? 0 : size[root];
+    }
+
+    /**
+     * Obtiene las celdas (fila * ancho + columna) del grupo de una celda.
+     *
+     * @param row la fila de la celda
+     * @param column la columna de la celda
+     * @return las celdas del grupo, vacío si la celda no está pegada
+     */
+    public int[] members(int row, int column) {
+        int start = cellSlot[row * w + column];
+        if (start == NONE) {
+            return new int[0];
+        }
+        int[] members = new int[size[find(start)]];
+        int count = 0;
+        int slot = start;
+        do {
+            members[count++] = slotCell[slot];
+            slot = next[slot];
+        } while (slot != start);
+        return members;
+    }
+
+    /**
+     * Pega una celda formando un grupo propio, si no estaba pegada.
+     *
+     * @param row la fila de la celda
+     * @param column la columna de la celda
+     */
+    public void glue(int row, int column) {
+        int cell = row * w + column;
+        if (cellSlot[cell] != NONE) {
+            return;
+        }
+        int slot;
+        if (free != NONE) {
+            slot = free;
+            free = next[slot];
+        } else {
+            if (slots == parent.length) {
+                int capacity = slots * 2;
+                slotCell = Arrays.copyOf(slotCell, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                rank = Arrays.copyOf(rank, capacity);
+                size = Arrays.copyOf(size, capacity);
+                next = Arrays.copyOf(next, capacity);
+                previous = Arrays.copyOf(previous, capacity);
+                mark = Arrays.copyOf(mark, capacity);
+            }
+            slot = slots++;
+        }
+        slotCell[slot] = cell;
+        parent[slot] = slot;
+        rank[slot] = 0;
+        size[slot] = 1;
+        next[slot] = slot;
+        previous[slot] = slot;
+        cellSlot[cell] = slot;
+        glued++;
+    }
+
+    /**
+     * Une los grupos de dos celdas pegadas.
+     *
+     * @param row la fila de la primera celda
+     * @param column la columna de la primera celda
+     * @param otherRow la fila de la segunda celda
+     * @param otherColumn la columna de la segunda celda
+     */
+    public void union(int row, int column, int otherRow, int otherColumn) {
+        int slot = cellSlot[row * w + column];
+        int otherSlot = cellSlot[otherRow * w + otherColumn];
+        if (slot == NONE || otherSlot == NONE) {
+            throw new IllegalArgumentException("Solo se pueden unir celdas pegadas");
+        }
+        link(slot, otherSlot);
+    }
+
+    private void link(int slot, int otherSlot) {
+        int root = find(slot);
+        int otherRoot = find(otherSlot);
+        if (root == otherRoot) {
+            return;
+        }
+        if (rank[root] < rank[otherRoot]) {
+            int swap = root;
+            root = otherRoot;
+            otherRoot = swap;
+        }
+        parent[otherRoot] = root;
+        size[root] += size[otherRoot];
+        if (rank[root] == rank[otherRoot]) {
+            rank[root]++;
+        }
+        int after = next[slot];
+        int otherBefore = previous[otherSlot];
+        next[slot] = otherSlot;
+        previous[otherSlot] = slot;
+        next[otherBefore] = after;
+        previous[after] = otherBefore;
+    }
+
+    /**
+     * Despega una celda de su grupo. Las demás celdas del grupo siguen pegadas
+     * a las que siguen siendo vecinas suyas; si el grupo queda partido, se
+     * divide en un grupo por cada parte.
+     *
+     * @param row la fila de la celda
+     * @param column la columna de la celda
+     */
+    public void remove(int row, int column) {
+        int cell = row * w + column;
+        int slot = cellSlot[cell];
+        if (slot == NONE) {
+            return;
+        }
+        int rest = next[slot] == slot ? NONE : next[slot];
+        detach(slot);
+        cellSlot[cell] = NONE;
+        if (rest != NONE) {
+            reroot(rest);
+            split(rest);
+        }
+        release(slot);
+    }
+
+    /**
+     * Recorre en anchura el grupo del slot dado y, si sus celdas ya no están
+     * todas conectadas, lo divide en un grupo por cada parte conexa.
+     */
+    private void split(int start) {
+        int count = size[find(start)];
+        int[] members = new int[count];
+        int slot = start;
+        for (int i = 0; i < count; i++) {
+            members[i] = slot;
+            slot = next[slot];
+        }
+        int member = ++stamp;
+        int seen = ++stamp;
+        for (int i = 0; i < count; i++) {
+            mark[members[i]] = member;
+        }
+
+        int[] queue = new int[count];
+        int[] firstOf = new int[count];
+        int visited = 0;
+        int parts = 0;
+        for (int i = 0; i < count; i++) {
+            if (mark[members[i]] != member) {
+                continue;
+            }
+            parts++;
+            int first = members[i];
+            int head = visited;
+            mark[first] = seen;
+            queue[visited] = first;
+            firstOf[visited++] = first;
+            while (head < visited) {
+                int cell = slotCell[queue[head++]];
+                int row = cell / w;
+                int column = cell % w;
+                int[] neighbours = {
+                    row > 0 ? cell - w : NONE,
+                    row < h - 1 ? cell + w : NONE,
+                    column > 0 ? cell - 1 : NONE,
+                    column < w - 1 ? cell + 1 : NONE
+                };
+                for (int neighbour : neighbours) {
+                    int neighbourSlot = neighbour == NONE ? NONE : cellSlot[neighbour];
+                    if (neighbourSlot != NONE && mark[neighbourSlot] == member) {
+                        mark[neighbourSlot] = seen;
+                        queue[visited] = neighbourSlot;
+                        firstOf[visited++] = first;
+                    }
+                }
+            }
+        }
+        if (parts == 1) {
+            return;
+        }
+        for (int memberSlot : members) {
+            parent[memberSlot] = memberSlot;
+            rank[memberSlot] = 0;
+            size[memberSlot] = 1;
+            next[memberSlot] = memberSlot;
+            previous[memberSlot] = memberSlot;
+        }
+        for (int i = 0; i < count; i++) {
+            if (queue[i] != firstOf[i]) {
+                link(firstOf[i], queue[i]);
+            }
+        }
+    }
+
+    /**
+     * Mueve a la vez las marcas de pegado de todas las celdas, por ejemplo
+     * después de inclinar el tablero.
+     *
+     * @param destination la nueva celda de cada celda, o -1 si su ficha salió
+     *        del tablero
+     */
+    public void relocate(int[] destination) {
+        int[] moved = new int[cellSlot.length];
+        Arrays.fill(moved, NONE);
+        int[] removed = new int[glued];
+        int[] survivor = new int[glued];
+        int removedCount = 0;
+        for (int cell = 0; cell < cellSlot.length; cell++) {
+            int slot = cellSlot[cell];
+            if (slot == NONE) {
+                continue;
+            }
+            int target = destination[cell];
+            if (target < 0) {
+                survivor[removedCount] = next[slot] == slot ? NONE : next[slot];
+                removed[removedCount++] = slot;
+                detach(slot);
+            } else {
+                moved[target] = slot;
+                slotCell[slot] = target;
+            }
+        }
+        System.arraycopy(moved, 0, cellSlot, 0, moved.length);
+        if (removedCount == 0) {
+            return;
+        }
+        // El último slot quitado de cada grupo apunta a un miembro que sigue vivo.
+        int rerooted = ++stamp;
+        for (int i = 0; i < removedCount; i++) {
+            int rest = survivor[i];
+            if (rest != NONE && slotCell[rest] != NONE && mark[rest] != rerooted) {
+                reroot(rest);
+                int slot = rest;
+                do {
+                    mark[slot] = rerooted;
+                    slot = next[slot];
+                } while (slot != rest);
+            }
+        }
+        for (int i = 0; i < removedCount; i++) {
+            release(removed[i]);
+        }
+    }
+
+    /**
+     * Cuelga todos los slots del grupo circular que contiene a start
+     * directamente de start, para que ningún slot despegado quede como padre.
+     */
+    private void reroot(int start) {
+        int count = 0;
+        int slot = start;
+        do {
+            parent[slot] = start;
+            rank[slot] = 0;
+            count++;
+            slot = next[slot];
+        } while (slot != start);
+        size[start] = count;
+        rank[start] = count > 1 ? 1 : 0;
+    }
+
+    /**
+     * Devuelve un slot despegado a la lista libre.
+     */
+    private void release(int slot) {
+        next[slot] = free;
+        previous[slot] = NONE;
+        free = slot;
+    }
+
+    private void detach(int slot) {
+        size[find(slot)]--;
+        next[previous[slot]] = next[slot];
+        previous[next[slot]] = previous[slot];
+        slotCell[slot] = NONE;
+        glued--;
+    }
+
+    /**
+     * Mueve la marca de pegado de una celda a otra vacía, conservando el grupo.
+     *
+     * @param row la fila de origen
+     * @param column la columna de origen
+     * @param toRow la fila de destino
+     * @param toColumn la columna de destino
+     */
+    public void move(int row, int column, int toRow, int toColumn) {
+        int cell = row * w + column;
+        int target = toRow * w + toColumn;
+        int slot = cellSlot[cell];
+        cellSlot[cell] = NONE;
+        cellSlot[target] = slot;
+        if (slot != NONE) {
+            slotCell[slot] = target;
+        }
+    }
+
+    private int find(int slot) {
+        int root = slot;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        while (parent[slot] != root) {
+            int up = parent[slot];
+            parent[slot] = root;
+            slot = up;
+        }
+        return root;
+    }
+}
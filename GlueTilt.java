@@ -0,0 +1,493 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Inclinación de un tablero con fichas pegadas, donde cada grupo de fichas
+ * pegadas se desliza como un solo cuerpo rígido.
+ *
+ * Cada ficha suelta y cada grupo pegado es una pieza. Una pieza depende de las
+ * piezas que tiene delante en la dirección de la inclinación (la primera celda
+ * ocupada de cada una de sus líneas), así que las piezas se procesan en orden
+ * topológico: cuando le toca a una pieza, lo que tiene delante ya está en su
+ * posición final. Si dos piezas se tienen delante mutuamente (grupos
+ * entrelazados) forman una componente fuertemente conexa; como cada una puede
+ * recorrer una distancia distinta, sus piezas avanzan de a una celda hasta que
+ * ninguna puede seguir.
+ *
+ * Para cada pieza solo se miran sus celdas del borde de avance (las que no
+ * tienen delante otra celda de la misma pieza): la pieza avanza lo mínimo que
+ * permiten esas celdas, y si alguna llega a un hueco antes de detenerse, la
+ * pieza entera cae. Un grupo pegado a una ficha que no desliza (Fixed, hueco,
+ * Rough...) no se mueve.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class GlueTilt {
+    private static final int NONE = -1;
+
+    private final int h;
+    private final int w;
+    private final byte[] cells;
+    private final int[] itemOf;
+    private int items;
+
+    private GlueTilt(PackedBoard board) {
+        this.h = board.getHeight();
+        this.w = board.getWidth();
+        this.cells = new byte[h * w];
+        board.store(cells, 0);
+        this.itemOf = new int[h * w];
+    }
+
+    /**
+     * Inclina una copia del tablero moviendo los grupos pegados como cuerpos
+     * rígidos. El tablero de entrada no se modifica.
+     *
+     * @param board el tablero
+     * @param glue los grupos de celdas pegadas del tablero
+     * @param direction la dirección de la inclinación ('l', 'r', 'u', 'd')
+     * @return el tablero inclinado
+     */
+    public static PackedBoard tilt(PackedBoard board, GlueGroups glue, char direction) {
+        int[] destination = destinations(board, glue, direction);
+        int w = board.getWidth();
+        PackedBoard tilted = new PackedBoard(board.getHeight(), w);
+        for (int cell = 0; cell < destination.length; cell++) {
+            int target = destination[cell];
+            if (target >= 0) {
+                tilted.set(target / w, target % w, board.get(cell / w, cell % w));
+            }
+        }
+        return tilted;
+    }
+
+    /**
+     * Calcula a qué celda va a parar el contenido de cada celda al inclinar.
+     *
+     * @param board el tablero
+     * @param glue los grupos de celdas pegadas del tablero
+     * @param direction la dirección de la inclinación ('l', 'r', 'u', 'd')
+     * @return para cada celda (fila * ancho + columna), la celda donde queda su
+     *         ficha, o -1 si está vacía o su ficha cae en un hueco
+     */
+    public static int[] destinations(PackedBoard board, GlueGroups glue, char direction) {
+        int rowStep = 0;
+        int columnStep = 0;
+        switch (Character.toLowerCase(direction)) {
+            case 'l':
+                columnStep = -1;
+                break;
+            case 'r':
+                columnStep = 1;
+                break;
+            case 'u':
+                rowStep = -1;
+                break;
+            case 'd':
+                rowStep = 1;
+                break;
+            default:
+                throw new IllegalArgumentException("Dirección inválida: " + direction);
+        }
+        return new GlueTilt(board).solve(glue, rowStep, columnStep);
+    }
+
+    /**
+     * Calcula qué celdas ocupadas no se mueven al inclinar en ninguna de las
+     * cuatro direcciones, moviendo los grupos pegados como cuerpos rígidos.
+     *
+     * @param board el tablero
+     * @param glue los grupos de celdas pegadas del tablero
+     * @return las celdas (fila * ancho + columna) que no se mueven
+     */
+    public static BitSet immovableCells(PackedBoard board, GlueGroups glue) {
+        int[][] moves = {
+            destinations(board, glue, 'l'), destinations(board, glue, 'r'),
+            destinations(board, glue, 'u'), destinations(board, glue, 'd')
+        };
+        BitSet immovable = new BitSet(moves[0].length);
+        for (int cell = 0; cell < moves[0].length; cell++) {
+            if (moves[0][cell] == cell && moves[1][cell] == cell && moves[2][cell] == cell && moves[3][cell] == cell) {
+                immovable.set(cell);
+            }
+        }
+        return immovable;
+    }
+
+    private int[] solve(GlueGroups glue, int rowStep, int columnStep) {
+        int[] destination = new int[cells.length];
+        Arrays.fill(destination, NONE);
+        findItems(glue, destination);
+
+        int[][] ahead = dependencies(rowStep, columnStep);
+        int[] order = new int[items];
+        int[] componentOf = new int[items];
+        int components = components(ahead, order, componentOf);
+
+        int[] firstCell = new int[components + 1];
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (itemOf[cell] != NONE) {
+                firstCell[componentOf[itemOf[cell]] + 1]++;
+            }
+        }
+        for (int component = 0; component < components; component++) {
+            firstCell[component + 1] += firstCell[component];
+        }
+        int[] componentCells = new int[firstCell[components]];
+        int[] filled = firstCell.clone();
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (itemOf[cell] != NONE) {
+                componentCells[filled[componentOf[itemOf[cell]]]++] = cell;
+            }
+        }
+
+        byte[] grid = cells.clone();
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (itemOf[cell] != NONE) {
+                grid[cell] = PackedBoard.EMPTY;
+            }
+        }
+        int[] owner = null;
+        int[] pieceOf = null;
+        for (int component = 0; component < components; component++) {
+            int from = firstCell[component];
+            int to = firstCell[component + 1];
+            if (singleItem(componentCells, from, to)) {
+                settle(componentCells, from, to, componentOf, grid, destination, rowStep, columnStep);
+            } else {
+                if (owner == null) {
+                    owner = new int[cells.length];
+                    Arrays.fill(owner, NONE);
+                    pieceOf = new int[items];
+                    Arrays.fill(pieceOf, NONE);
+                }
+                step(componentCells, from, to, owner, pieceOf, grid, destination, rowStep, columnStep);
+            }
+        }
+        return destination;
+    }
+
+    private boolean singleItem(int[] componentCells, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            if (itemOf[componentCells[i]] != itemOf[componentCells[from]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Asigna una pieza a cada ficha que desliza: las sueltas son piezas propias
+     * y las pegadas comparten la pieza de su grupo. Las celdas que no se mueven
+     * quedan en su lugar.
+     */
+    private void findItems(GlueGroups glue, int[] destination) {
+        Arrays.fill(itemOf, NONE);
+        boolean hasGlue = glue != null && !glue.isEmpty();
+        for (int cell = 0; cell < cells.length; cell++) {
+            byte code = cells[cell];
+            if (code == PackedBoard.EMPTY) {
+                continue;
+            }
+            destination[cell] = cell;
+            if (PackedBoard.kind(code) != PackedBoard.FICHA || itemOf[cell] != NONE) {
+                continue;
+            }
+            int row = cell / w;
+            int column = cell % w;
+            if (!hasGlue || !glue.isGlued(row, column)) {
+                itemOf[cell] = items++;
+                continue;
+            }
+            int[] members = glue.members(row, column);
+            boolean movable = true;
+            for (int member : members) {
+                if (PackedBoard.kind(cells[member]) != PackedBoard.FICHA) {
+                    movable = false;
+                    break;
+                }
+            }
+            if (movable) {
+                int item = items++;
+                for (int member : members) {
+                    itemOf[member] = item;
+                }
+            } else {
+                for (int member : members) {
+                    itemOf[member] = NONE - 1;
+                }
+            }
+        }
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (itemOf[cell] < NONE) {
+                itemOf[cell] = NONE;
+            }
+        }
+    }
+
+    /**
+     * Para cada pieza, las piezas que son lo primero que hay delante de alguna
+     * de sus celdas.
+     */
+    private int[][] dependencies(int rowStep, int columnStep) {
+        int[] counts = new int[items];
+        int[] edges = new int[cells.length * 2];
+        int edgeCount = 0;
+        boolean horizontal = rowStep == 0;
+        int lines = horizontal ? h : w;
+        int length = horizontal ? w : h;
+        boolean fromEnd = rowStep + columnStep > 0;
+        for (int line = 0; line < lines; line++) {
+            int front = NONE;
+            for (int i = 0; i < length; i++) {
+                int index = fromEnd ? length - 1 - i : i;
+                int cell = horizontal ? line * w + index : index * w + line;
+                if (cells[cell] == PackedBoard.EMPTY) {
+                    continue;
+                }
+                int item = itemOf[cell];
+                if (item != NONE && front != NONE && front != item) {
+                    edges[edgeCount++] = item;
+                    edges[edgeCount++] = front;
+                    counts[item]++;
+                }
+                front = item;
+            }
+        }
+        int[][] ahead = new int[items][];
+        for (int item = 0; item < items; item++) {
+            ahead[item] = new int[counts[item]];
+            counts[item] = 0;
+        }
+        for (int i = 0; i < edgeCount; i += 2) {
+            int item = edges[i];
+            ahead[item][counts[item]++] = edges[i + 1];
+        }
+        return ahead;
+    }
+
+    /**
+     * Agrupa las piezas en componentes fuertemente conexas (Tarjan, iterativo)
+     * y las numera de modo que cada componente va después de las que tiene
+     * delante.
+     *
+     * @return la cantidad de componentes
+     */
+    private int components(int[][] ahead, int[] stack, int[] componentOf) {
+        int[] index = new int[items];
+        int[] low = new int[items];
+        int[] edge = new int[items];
+        int[] callStack = new int[items];
+        boolean[] onStack = new boolean[items];
+        Arrays.fill(index, NONE);
+        int counter = 0;
+        int stackSize = 0;
+        int components = 0;
+        for (int root = 0; root < items; root++) {
+            if (index[root] != NONE) {
+                continue;
+            }
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth > 0) {
+                int item = callStack[depth - 1];
+                if (edge[item] < ahead[item].length) {
+                    int next = ahead[item][edge[item]++];
+                    if (index[next] == NONE) {
+                        index[next] = low[next] = counter++;
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        callStack[depth++] = next;
+                    } else if (onStack[next]) {
+                        low[item] = Math.min(low[item], index[next]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[item]);
+                }
+                if (low[item] == index[item]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        componentOf[member] = components;
+                    } while (member != item);
+                    components++;
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Desliza una componente hasta que una de sus celdas de avance se detiene,
+     * o la deja caer si una de ellas llega antes a un hueco.
+     */
+    private void settle(int[] componentCells, int from, int to, int[] componentOf, byte[] grid,
+                        int[] destination, int rowStep, int columnStep) {
+        int component = componentOf[itemOf[componentCells[from]]];
+        int blocked = Integer.MAX_VALUE;
+        int hole = Integer.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            int cell = componentCells[i];
+            int row = cell / w + rowStep;
+            int column = cell % w + columnStep;
+            if (inside(row, column)) {
+                int front = itemOf[row * w + column];
+                if (front != NONE && componentOf[front] == component) {
+                    continue;
+                }
+            }
+            int distance = 0;
+            while (true) {
+                if (!inside(row, column)) {
+                    blocked = Math.min(blocked, distance);
+                    break;
+                }
+                byte code = grid[row * w + column];
+                if (code != PackedBoard.EMPTY) {
+                    if (PackedBoard.kind(code) == PackedBoard.HOLE) {
+                        hole = Math.min(hole, distance);
+                    } else {
+                        blocked = Math.min(blocked, distance);
+                    }
+                    break;
+                }
+                if (distance >= blocked) {
+                    break;
+                }
+                distance++;
+                row += rowStep;
+                column += columnStep;
+            }
+        }
+        boolean falls = hole < blocked;
+        int shift = blocked * (rowStep * w + columnStep);
+        for (int i = from; i < to; i++) {
+            int cell = componentCells[i];
+            if (falls) {
+                destination[cell] = NONE;
+            } else {
+                destination[cell] = cell + shift;
+                grid[cell + shift] = cells[cell];
+            }
+        }
+    }
+
+    /**
+     * Mueve las piezas de una componente con varias piezas de a una celda,
+     * hasta que ninguna puede avanzar. Una pieza avanza si todas sus celdas de
+     * avance tienen delante una celda vacía (o de la misma pieza), y cae si
+     * además alguna de ellas tiene delante un hueco.
+     *
+     * @param owner la pieza que ocupa cada celda durante el recorrido, NONE
+     *        fuera de él
+     * @param pieceOf la posición de cada pieza dentro de la componente, NONE
+     *        fuera de él
+     */
+    private void step(int[] componentCells, int from, int to, int[] owner, int[] pieceOf, byte[] grid,
+                      int[] destination, int rowStep, int columnStep) {
+        int count = to - from;
+        int[] itemIds = new int[count];
+        int[] itemStart = new int[count + 1];
+        int pieces = 0;
+        for (int i = from; i < to; i++) {
+            int item = itemOf[componentCells[i]];
+            if (pieceOf[item] == NONE) {
+                pieceOf[item] = pieces;
+                itemIds[pieces++] = item;
+            }
+            itemStart[pieceOf[item] + 1]++;
+        }
+        for (int piece = 0; piece < pieces; piece++) {
+            itemStart[piece + 1] += itemStart[piece];
+        }
+        int[] byItem = new int[count];
+        int[] filled = itemStart.clone();
+        for (int i = from; i < to; i++) {
+            int cell = componentCells[i];
+            byItem[filled[pieceOf[itemOf[cell]]]++] = cell;
+            owner[cell] = itemOf[cell];
+        }
+        for (int piece = 0; piece < pieces; piece++) {
+            pieceOf[itemIds[piece]] = NONE;
+        }
+
+        int shift = rowStep * w + columnStep;
+        int[] moved = new int[pieces];
+        boolean[] fallen = new boolean[pieces];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int piece = 0; piece < pieces; piece++) {
+                if (fallen[piece]) {
+                    continue;
+                }
+                int item = itemIds[piece];
+                boolean blocked = false;
+                boolean falls = false;
+                for (int i = itemStart[piece]; i < itemStart[piece + 1] && !blocked; i++) {
+                    int cell = byItem[i] + moved[piece] * shift;
+                    int row = cell / w + rowStep;
+                    int column = cell % w + columnStep;
+                    if (!inside(row, column)) {
+                        blocked = true;
+                        break;
+                    }
+                    int front = row * w + column;
+                    if (owner[front] == item) {
+                        continue;
+                    }
+                    if (owner[front] != NONE) {
+                        blocked = true;
+                    } else if (grid[front] != PackedBoard.EMPTY) {
+                        if (PackedBoard.kind(grid[front]) == PackedBoard.HOLE) {
+                            falls = true;
+                        } else {
+                            blocked = true;
+                        }
+                    }
+                }
+                if (blocked) {
+                    continue;
+                }
+                changed = true;
+                for (int i = itemStart[piece]; i < itemStart[piece + 1]; i++) {
+                    owner[byItem[i] + moved[piece] * shift] = NONE;
+                }
+                if (falls) {
+                    fallen[piece] = true;
+                    continue;
+                }
+                moved[piece]++;
+                for (int i = itemStart[piece]; i < itemStart[piece + 1]; i++) {
+                    owner[byItem[i] + moved[piece] * shift] = item;
+                }
+            }
+        }
+
+        for (int piece = 0; piece < pieces; piece++) {
+            for (int i = itemStart[piece]; i < itemStart[piece + 1]; i++) {
+                int cell = byItem[i];
+                if (fallen[piece]) {
+                    destination[cell] = NONE;
+                } else {
+                    int target = cell + moved[piece] * shift;
+                    destination[cell] = target;
+                    grid[target] = cells[cell];
+                    owner[target] = NONE;
+                }
+            }
+        }
+    }
+
+    private boolean inside(int row, int column) {
+        return row >= 0 && row < h && column >= 0 && column < w;
+    }
+}
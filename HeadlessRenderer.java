@@ -0,0 +1,35 @@
+import java.awt.Shape;
+
+/**
+ * Renderer que no dibuja ni espera: el juego funciona igual pero sin ventana
+ * y sin las pausas de animación, así que no necesita Swing ni una pantalla.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class HeadlessRenderer implements Renderer {
+
+    @Override
+    public void draw(Object referenceObject, String color, Shape shape) {
+    }
+
+    @Override
+    public void erase(Object referenceObject) {
+    }
+
+    @Override
+    public void wait(int milliseconds) {
+    }
+
+    @Override
+    public void beginFrame() {
+    }
+
+    @Override
+    public void commitFrame() {
+    }
+
+    @Override
+    public boolean animates() {
+        return false;
+    }
+}
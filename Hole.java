@@ -9,7 +9,32 @@ public class Hole extends Tile {
      * @param yPosition   Posición en el eje Y.
      */
     public Hole(int width, int height, int xPosition, int yPosition) {
-        super(width, height, xPosition, yPosition, "white", 'h');
-        setTypet("hole");
+        this(width, height, xPosition, yPosition, null);
+    }
+
+    /**
+     * Constructor para crear un agujero que se dibuja en el renderer indicado.
+     *
+     * @param width       Ancho del agujero.
+     * @param height      Altura del agujero.
+     * @param xPosition   Posición en el eje X.
+     * @param yPosition   Posición en el eje Y.
+     * @param renderer    Donde se dibuja el agujero, o null para usar el Canvas.
+     */
+    public Hole(int width, int height, int xPosition, int yPosition, Renderer renderer) {
+        super(width, height, xPosition, yPosition, "white", 'h', renderer);
+        setKind(TileKind.HOLE);
+    }
+
+    /**
+     * Constructor para crear un agujero en una celda de un tablero.
+     *
+     * @param row         Fila del agujero.
+     * @param column      Columna del agujero.
+     * @param board       Vista del tablero donde se dibuja el agujero.
+     */
+    public Hole(int row, int column, BoardView board) {
+        super(row, column, "white", 'h', board);
+        setKind(TileKind.HOLE);
     }
 }
\ No newline at end of file
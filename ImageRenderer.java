@@ -0,0 +1,307 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Renderer que dibuja en una imagen en memoria (BufferedImage), sin abrir
+ * ninguna ventana, y que puede grabar cada cuadro en disco.
+ *
+ * Sirve para revisar fuera de línea la salida de los solucionadores: se crea
+ * el Puzzle con este renderer, se graba a PNG (un archivo por cuadro) o a un
+ * GIF animado y cada inclinación (un cuadro, ver beginFrame) se escribe en
+ * cuanto termina. Solo se guarda en memoria la imagen del cuadro actual, así
+ * que una repetición de miles de movimientos no acumula cuadros.
+ *
+ * Las figuras se pintan igual que en el Canvas (Canvas.paint).
+ *
+ * @author Arteaga-Hurtado
+ */
+public class ImageRenderer implements Renderer, AutoCloseable {
+    private final BufferedImage image;
+    private final Graphics2D graphic;
+    private final Map<Object, Figure> figures;
+    private int frameDepth;
+    private boolean changed;
+    private FrameSink sink;
+    private int frames;
+
+    /**
+     * Crea un renderer con una imagen del tamaño indicado, en blanco.
+     *
+     * @param width el ancho de la imagen en pixels
+     * @param height el alto de la imagen en pixels
+     */
+    public ImageRenderer(int width, int height) {
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.graphic = image.createGraphics();
+        this.figures = new LinkedHashMap<>();
+        paintAll();
+    }
+
+    @Override
+    public void draw(Object referenceObject, String color, Shape shape) {
+        figures.remove(referenceObject);
+        figures.put(referenceObject, new Figure(shape, color));
+        changed = true;
+    }
+
+    @Override
+    public void erase(Object referenceObject) {
+        if (figures.remove(referenceObject) != null) {
+            changed = true;
+        }
+    }
+
+    @Override
+    public void wait(int milliseconds) {
+    }
+
+    @Override
+    public void beginFrame() {
+        frameDepth++;
+    }
+
+    @Override
+    public void commitFrame() {
+        if (frameDepth == 0) {
+            return;
+        }
+        frameDepth--;
+        if (frameDepth == 0 && changed) {
+            captureFrame();
+        }
+    }
+
+    /**
+     * Las figuras saltan a su destino: cada inclinación es un solo cuadro.
+     */
+    @Override
+    public boolean animates() {
+        return false;
+    }
+
+    /**
+     * Empieza a grabar cada cuadro como un archivo PNG en la carpeta indicada
+     * (frame-00000.png, frame-00001.png, ...).
+     *
+     * @param directory la carpeta donde se escriben los cuadros
+     * @throws IOException si no se puede crear la carpeta
+     */
+    public void recordPng(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        startRecording(new PngSink(directory));
+    }
+
+    /**
+     * Empieza a grabar los cuadros en un GIF animado que se repite sin fin.
+     *
+     * @param file el archivo GIF
+     * @param delayMillis cuánto se muestra cada cuadro, en milisegundos
+     * @throws IOException si no se puede abrir el archivo
+     */
+    public void recordGif(Path file, int delayMillis) throws IOException {
+        startRecording(new GifSink(file, delayMillis));
+    }
+
+    /**
+     * Pinta la imagen con las figuras actuales y, si se está grabando, la
+     * escribe como un cuadro más. Los cambios hechos fuera de un cuadro
+     * (beginFrame / commitFrame) se muestran en el siguiente cuadro.
+     */
+    public void captureFrame() {
+        changed = false;
+        paintAll();
+        if (sink != null) {
+            try {
+                sink.write(image);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            frames++;
+        }
+    }
+
+    /**
+     * Obtiene la imagen del último cuadro pintado.
+     *
+     * @return la imagen
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Obtiene la cantidad de cuadros grabados.
+     *
+     * @return los cuadros escritos desde que empezó la grabación
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * Termina la grabación, escribiendo antes los cambios pendientes, y
+     * cierra el archivo.
+     *
+     * @throws IOException si falla la escritura
+     */
+    @Override
+    public void close() throws IOException {
+        if (sink == null) {
+            return;
+        }
+        if (changed) {
+            captureFrame();
+        }
+        FrameSink closing = sink;
+        sink = null;
+        closing.close();
+    }
+
+    private void startRecording(FrameSink newSink) throws IOException {
+        close();
+        sink = newSink;
+        frames = 0;
+        captureFrame();
+    }
+
+    private void paintAll() {
+        graphic.setColor(Color.white);
+        graphic.fillRect(0, 0, image.getWidth(), image.getHeight());
+        for (Figure figure : figures.values()) {
+            Canvas.paint(graphic, figure.color, figure.shape);
+        }
+    }
+
+    /**
+     * Una figura registrada y su color.
+     */
+    private static class Figure {
+        private final Shape shape;
+        private final String color;
+
+        private Figure(Shape shape, String color) {
+            this.shape = shape;
+            this.color = color;
+        }
+    }
+
+    /**
+     * Destino de los cuadros grabados.
+     */
+    private interface FrameSink {
+        void write(BufferedImage frame) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    /**
+     * Escribe cada cuadro en su propio archivo PNG.
+     */
+    private static class PngSink implements FrameSink {
+        private final Path directory;
+        private int next;
+
+        private PngSink(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public void write(BufferedImage frame) throws IOException {
+            Path file = directory.resolve(String.format("frame-%05d.png", next++));
+            if (!ImageIO.write(frame, "png", file.toFile())) {
+                throw new IOException("No hay escritor de PNG disponible");
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Escribe los cuadros uno tras otro en una secuencia GIF, sin guardarlos
+     * en memoria.
+     */
+    private static class GifSink implements FrameSink {
+        private final ImageOutputStream output;
+        private final ImageWriter writer;
+        private final int delayMillis;
+        private IIOMetadata metadata;
+
+        private GifSink(Path file, int delayMillis) throws IOException {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+            if (!writers.hasNext()) {
+                throw new IOException("No hay escritor de GIF disponible");
+            }
+            this.writer = writers.next();
+            this.delayMillis = delayMillis;
+            Files.deleteIfExists(file);
+            this.output = ImageIO.createImageOutputStream(file.toFile());
+            writer.setOutput(output);
+            writer.prepareWriteSequence(null);
+        }
+
+        @Override
+        public void write(BufferedImage frame) throws IOException {
+            if (metadata == null) {
+                metadata = frameMetadata(frame);
+            }
+            writer.writeToSequence(new IIOImage(frame, null, metadata), null);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writer.endWriteSequence();
+            } finally {
+                writer.dispose();
+                output.close();
+            }
+        }
+
+        /**
+         * Metadatos de cada cuadro: cuánto se muestra y que la animación se
+         * repita sin fin.
+         */
+        private IIOMetadata frameMetadata(BufferedImage frame) throws IOException {
+            IIOMetadata frameMetadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(frame), null);
+            String format = frameMetadata.getNativeMetadataFormatName();
+            IIOMetadataNode root = (IIOMetadataNode) frameMetadata.getAsTree(format);
+
+            IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+            control.setAttribute("disposalMethod", "none");
+            control.setAttribute("userInputFlag", "FALSE");
+            control.setAttribute("transparentColorFlag", "FALSE");
+            control.setAttribute("delayTime", Integer.toString(Math.max(1, delayMillis / 10)));
+            control.setAttribute("transparentColorIndex", "0");
+            root.appendChild(control);
+
+            IIOMetadataNode applications = new IIOMetadataNode("ApplicationExtensions");
+            IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte[] {1, 0, 0});
+            applications.appendChild(loop);
+            root.appendChild(applications);
+
+            frameMetadata.setFromTree(format, root);
+            return frameMetadata;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Un archivo de tableros para la búsqueda en disco.
+ *
+ * Cada registro es el hash de Zobrist del tablero (8 bytes) seguido de sus
+ * celdas con la codificación de PackedBoard (un byte por celda). Los archivos
+ * de capa se escriben ordenados por hash y sin repetidos, de modo que dos capas
+ * se comparan o se unen recorriéndolas una sola vez. La lectura se hace por
+ * ventanas de memoria mapeada y la escritura con un flujo con buffer.
+ *
+ * Cada lector mapea una sola ventana de como mucho WINDOW_BYTES y deja de
+ * referenciar la anterior al avanzar o al cerrarse, para que se libere; como
+ * ExternalSearch no abre más de MERGE_FAN_IN + 1 lectores a la vez, la memoria
+ * mapeada queda acotada aunque la capa tenga muchos tramos.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class LayerFile {
+    private static final int HASH_BYTES = 8;
+    private static final int WINDOW_BYTES = 1 << 22; // por lector abierto
+
+    private LayerFile() {
+    }
+
+    /**
+     * Obtiene el tamaño de un registro para tableros con la cantidad de celdas
+     * indicada.
+     *
+     * @param cells la cantidad de celdas del tablero
+     * @return el tamaño del registro en bytes
+     */
+    public static int recordSize(int cells) {
+        return HASH_BYTES + cells;
+    }
+
+    /**
+     * Cuenta los registros de un archivo.
+     *
+     * @param path el archivo
+     * @param cells la cantidad de celdas de cada tablero
+     * @return la cantidad de registros
+     */
+    public static long count(Path path, int cells) throws IOException {
+        return Files.size(path) / recordSize(cells);
+    }
+
+    /**
+     * Escribe registros al final de un archivo nuevo.
+     */
+    public static class Writer implements Closeable {
+        private final DataOutputStream out;
+        private long count;
+
+        public Writer(Path path) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+        }
+
+        /**
+         * Escribe un registro.
+         *
+         * @param hash el hash del tablero
+         * @param cells el arreglo con las celdas del tablero
+         * @param offset la posición de la primera celda en el arreglo
+         * @param length la cantidad de celdas
+         */
+        public void write(long hash, byte[] cells, int offset, int length) throws IOException {
+            out.writeLong(hash);
+            out.write(cells, offset, length);
+            count++;
+        }
+
+        /**
+         * Obtiene la cantidad de registros escritos.
+         *
+         * @return la cantidad de registros
+         */
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Recorre los registros de un archivo en orden, mapeando en memoria una
+     * ventana del archivo a la vez.
+     */
+    public static class Reader implements Closeable {
+        private final FileChannel channel;
+        private final int recordSize;
+        private final long records;
+        private final long windowRecords;
+        private final byte[] cells;
+        private MappedByteBuffer window;
+        private long windowEnd;
+        private long position;
+        private long hash;
+
+        public Reader(Path path, int cells) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.recordSize = recordSize(cells);
+            this.records = channel.size() / recordSize;
+            this.windowRecords = Math.max(1, WINDOW_BYTES / recordSize);
+            this.cells = new byte[cells];
+        }
+
+        /**
+         * Avanza al siguiente registro.
+         *
+         * @return false si no quedan registros
+         */
+        public boolean advance() throws IOException {
+            if (position == records) {
+                return false;
+            }
+            if (position == windowEnd) {
+                long length = Math.min(windowRecords, records - position);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position * recordSize, length * recordSize);
+                windowEnd = position + length;
+            }
+            hash = window.getLong();
+            window.get(cells);
+            position++;
+            return true;
+        }
+
+        /**
+         * Obtiene el hash del registro actual.
+         *
+         * @return el hash del tablero
+         */
+        public long hash() {
+            return hash;
+        }
+
+        /**
+         * Obtiene las celdas del registro actual. El arreglo se reutiliza en
+         * cada avance.
+         *
+         * @return las celdas del tablero
+         */
+        public byte[] cells() {
+            return cells;
+        }
+
+        /**
+         * Carga el registro actual en un tablero.
+         *
+         * @param board el tablero destino
+         */
+        public void load(PackedBoard board) {
+            board.load(cells, 0, hash);
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Conjunto de valores long con direccionamiento abierto.
+ *
+ * Guarda los valores directamente en un arreglo long[] (sondeo lineal), sin
+ * objetos por elemento, para poder registrar decenas de millones de hashes de
+ * tableros con 8 bytes por posición de la tabla. El valor 0 se usa como casilla
+ * vacía y se registra aparte.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class LongHashSet {
+    private static final double MAX_LOAD = 0.7;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+    private int resizeAt;
+
+    /**
+     * Crea un conjunto con capacidad inicial para unos pocos miles de valores.
+     */
+    public LongHashSet() {
+        this(1 << 12);
+    }
+
+    /**
+     * Crea un conjunto con capacidad para la cantidad de valores indicada sin
+     * necesidad de crecer.
+     *
+     * @param expected la cantidad de valores esperada
+     */
+    public LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit((int) Math.min(1 << 30, Math.max(16, (long) (expected / MAX_LOAD)) * 2 - 1));
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * MAX_LOAD);
+    }
+
+    /**
+     * Añade un valor al conjunto.
+     *
+     * @param value el valor a añadir
+     * @return true si el valor no estaba en el conjunto
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int index = slot(value);
+        while (table[index] != 0) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        if (++size >= resizeAt) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Verifica si un valor está en el conjunto.
+     *
+     * @param value el valor a buscar
+     * @return true si el valor está en el conjunto
+     */
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int index = slot(value);
+        while (table[index] != 0) {
+            if (table[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene la cantidad de valores del conjunto.
+     *
+     * @return la cantidad de valores
+     */
+    public int size() {
+        return size;
+    }
+
+    private int slot(long value) {
+        return (int) (value ^ (value >>> 32)) & mask;
+    }
+
+    private void grow() {
+        if (table.length == 1 << 30) {
+            throw new IllegalStateException("El conjunto alcanzó su capacidad máxima");
+        }
+        long[] old = table;
+        allocate(old.length * 2);
+        for (long value : old) {
+            if (value != 0) {
+                int index = slot(value);
+                while (table[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+}
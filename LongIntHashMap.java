@@ -0,0 +1,117 @@
+/**
+ * Tabla de valores int indexada por claves long, con direccionamiento abierto.
+ *
+ * Igual que LongHashSet, guarda claves y valores en arreglos primitivos
+ * (sondeo lineal) para no crear objetos por elemento. La clave 0 se usa como
+ * casilla vacía y se registra aparte.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class LongIntHashMap {
+    private static final double MAX_LOAD = 0.7;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean containsZero;
+    private int zeroValue;
+
+    /**
+     * Crea una tabla con capacidad inicial para unos pocos miles de claves.
+     */
+    public LongIntHashMap() {
+        allocate(1 << 12);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * MAX_LOAD);
+    }
+
+    /**
+     * Asocia un valor a una clave, reemplazando el anterior si existía.
+     *
+     * @param key la clave
+     * @param value el valor
+     */
+    public void put(long key, int value) {
+        if (key == 0) {
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int index = slot(key);
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size >= resizeAt) {
+            grow();
+        }
+    }
+
+    /**
+     * Obtiene el valor asociado a una clave.
+     *
+     * @param key la clave
+     * @param missing el valor a devolver si la clave no está
+     * @return el valor de la clave, o missing si no está
+     */
+    public int get(long key, int missing) {
+        if (key == 0) {
+            return containsZero ? zeroValue : missing;
+        }
+        int index = slot(key);
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return missing;
+    }
+
+    /**
+     * Obtiene la cantidad de claves de la tabla.
+     *
+     * @return la cantidad de claves
+     */
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    private void grow() {
+        if (keys.length == 1 << 30) {
+            throw new IllegalStateException("La tabla alcanzó su capacidad máxima");
+        }
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = slot(oldKeys[i]);
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
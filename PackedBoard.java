@@ -0,0 +1,440 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Representación compacta de un tablero del rompecabezas.
+ *
+ * Cada celda ocupa un solo byte: los 4 bits bajos guardan el carácter de la
+ * ficha y los bits 4 a 6 su tipo (ficha, hole, Fixed, Rough, Flying o
+ * Freelance). Cada carácter distinto recibe su propio código (r, b, y y g
+ * tienen siempre 1 a 4), así que dos celdas son iguales si y solo si tienen el
+ * mismo tipo y el mismo carácter, igual que en Puzzle.isGoal(). Caben hasta 15
+ * caracteres distintos.
+ * Una celda vacía vale 0. Copiar un tablero es un único System.arraycopy, por
+ * lo que el simulador puede explorar inclinaciones sin crear objetos Tile.
+ * El tablero mantiene además su hash de Zobrist, actualizado en cada cambio.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class PackedBoard {
+    public static final byte EMPTY = 0;
+
+    public static final int FICHA = 1;
+    public static final int HOLE = 2;
+    public static final int FIXED = 3;
+    public static final int ROUGH = 4;
+    public static final int FLYING = 5;
+    public static final int FREELANCE = 6;
+
+    private static final char[] CHARS = new char[16]; // carácter de cada código, 0 libre
+    private static int chars;
+
+    static {
+        for (char tileChar : "rbyg".toCharArray()) {
+            CHARS[++chars] = tileChar;
+        }
+    }
+
+    private final int h;
+    private final int w;
+    private final byte[] cells;
+    private long hash;
+
+    /**
+     * Crea un tablero compacto vacío.
+     *
+     * @param h alto del tablero
+     * @param w ancho del tablero
+     */
+    public PackedBoard(int h, int w) {
+        this.h = h;
+        this.w = w;
+        this.cells = new byte[h * w];
+    }
+
+    /**
+     * Construye el tablero compacto equivalente a una matriz de fichas.
+     *
+     * @param tiles la matriz de fichas, con null en las celdas vacías
+     * @return el tablero compacto
+     */
+    public static PackedBoard fromTiles(Tile[][] tiles) {
+        int h = tiles.length;
+        int w = tiles[0].length;
+        PackedBoard board = new PackedBoard(h, w);
+        for (int row = 0; row < h; row++) {
+            for (int column = 0; column < w; column++) {
+                Tile tile = tiles[row][column];
+                if (tile != null) {
+                    board.set(row, column, tile.getCode());
+                }
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Construye el tablero compacto equivalente a un tablero de caracteres.
+     *
+     * @param chars el tablero de caracteres, con '.' en las celdas vacías
+     * @return el tablero compacto
+     */
+    public static PackedBoard fromChars(char[][] chars) {
+        int h = chars.length;
+        int w = chars[0].length;
+        PackedBoard board = new PackedBoard(h, w);
+        for (int row = 0; row < h; row++) {
+            for (int column = 0; column < w; column++) {
+                board.set(row, column, encode(chars[row][column]));
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Codifica un tipo de ficha y su carácter en un byte.
+     *
+     * @param typet el tipo de la ficha ("ficha", "hole", "Fixed", ...)
+     * @param tileChar el carácter de la ficha
+     * @return el byte que representa la celda
+     */
+    public static byte encode(String typet, char tileChar) {
+        return encode(TileKind.fromTypet(typet), tileChar);
+    }
+
+    /**
+     * Codifica un tipo de ficha y su carácter en un byte.
+     *
+     * @param kind el tipo de la ficha
+     * @param tileChar el carácter de la ficha
+     * @return el byte que representa la celda
+     * @throws IllegalArgumentException si ya hay 15 caracteres distintos y
+     *         este es uno nuevo
+     */
+    public static byte encode(TileKind kind, char tileChar) {
+        return (byte) (kind.code() << 4 | charCode(tileChar));
+    }
+
+    /**
+     * Obtiene el código de un carácter de ficha, asignándole el siguiente
+     * libre si es la primera vez que aparece.
+     */
+    private static synchronized int charCode(char tileChar) {
+        for (int code = 1; code <= chars; code++) {
+            if (CHARS[code] == tileChar) {
+                return code;
+            }
+        }
+        if (chars == CHARS.length - 1) {
+            throw new IllegalArgumentException("No se pueden distinguir más de " + chars
+                + " caracteres de ficha: " + tileChar);
+        }
+        CHARS[++chars] = tileChar;
+        return chars;
+    }
+
+    /**
+     * Codifica el carácter de una ficha normal en un byte.
+     *
+     * @param tileChar el carácter de la ficha, '.' para una celda vacía
+     * @return el byte que representa la celda
+     */
+    public static byte encode(char tileChar) {
+        if (tileChar == '.') {
+            return EMPTY;
+        }
+        return encode(TileKind.FICHA, tileChar);
+    }
+
+    /**
+     * Obtiene el tipo codificado en una celda.
+     *
+     * @param cell el byte de la celda
+     * @return el tipo de la celda, 0 si está vacía
+     */
+    public static int kind(byte cell) {
+        return cell >> 4;
+    }
+
+    /**
+     * Obtiene el código del carácter de una celda. Los solucionadores lo usan
+     * como el color de la ficha: dos fichas son intercambiables si y solo si
+     * tienen el mismo código.
+     *
+     * @param cell el byte de la celda
+     * @return el código del carácter de la celda, 0 si está vacía
+     */
+    public static int color(byte cell) {
+        return cell & 0x0F;
+    }
+
+    /**
+     * Obtiene el carácter de ficha codificado en una celda.
+     *
+     * @param cell el byte de la celda
+     * @return el carácter de la ficha, o '.' si la celda está vacía
+     */
+    public static synchronized char tileChar(byte cell) {
+        return cell == EMPTY ? '.' : CHARS[color(cell)];
+    }
+
+    public int getHeight() {
+        return h;
+    }
+
+    public int getWidth() {
+        return w;
+    }
+
+    /**
+     * Obtiene el byte de la celda indicada.
+     *
+     * @param row la fila de la celda
+     * @param column la columna de la celda
+     * @return el byte de la celda
+     */
+    public byte get(int row, int column) {
+        return cells[row * w + column];
+    }
+
+    /**
+     * Cambia el byte de la celda indicada.
+     *
+     * @param row la fila de la celda
+     * @param column la columna de la celda
+     * @param cell el nuevo byte de la celda
+     */
+    public void set(int row, int column, byte cell) {
+        int index = row * w + column;
+        hash ^= Zobrist.key(index, cells[index]) ^ Zobrist.key(index, cell);
+        cells[index] = cell;
+    }
+
+    /**
+     * Obtiene el hash de Zobrist del tablero.
+     *
+     * @return el hash del tablero
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Guarda las celdas del tablero en un arreglo de bytes.
+     *
+     * @param target el arreglo destino
+     * @param offset la posición del arreglo donde empieza el tablero
+     */
+    void store(byte[] target, int offset) {
+        System.arraycopy(cells, 0, target, offset, cells.length);
+    }
+
+    /**
+     * Carga las celdas del tablero desde un arreglo de bytes.
+     *
+     * @param source el arreglo de origen
+     * @param offset la posición del arreglo donde empieza el tablero
+     * @param hash el hash de Zobrist de las celdas cargadas
+     */
+    void load(byte[] source, int offset, long hash) {
+        System.arraycopy(source, offset, cells, 0, cells.length);
+        this.hash = hash;
+    }
+
+    /**
+     * Crea una copia independiente del tablero.
+     *
+     * @return la copia del tablero
+     */
+    public PackedBoard copy() {
+        PackedBoard copy = new PackedBoard(h, w);
+        System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+        copy.hash = hash;
+        return copy;
+    }
+
+    /**
+     * Copia el contenido de este tablero en otro de las mismas dimensiones.
+     *
+     * @param target el tablero destino
+     */
+    public void copyInto(PackedBoard target) {
+        System.arraycopy(cells, 0, target.cells, 0, cells.length);
+        target.hash = hash;
+    }
+
+    /**
+     * Realiza una inclinación en la dirección especificada.
+     *
+     * @param direction la dirección de la inclinación ('l', 'r', 'u', 'd')
+     */
+    public void tilt(char direction) {
+        switch (Character.toLowerCase(direction)) {
+            case 'l':
+                for (int row = 0; row < h; row++) {
+                    tiltLine(row * w, 1, w);
+                }
+                break;
+            case 'r':
+                for (int row = 0; row < h; row++) {
+                    tiltLine(row * w + w - 1, -1, w);
+                }
+                break;
+            case 'u':
+                for (int column = 0; column < w; column++) {
+                    tiltLine(column, w, h);
+                }
+                break;
+            case 'd':
+                for (int column = 0; column < w; column++) {
+                    tiltLine((h - 1) * w + column, -w, h);
+                }
+                break;
+            default:
+                System.out.println("Dirección inválida");
+        }
+    }
+
+    /**
+     * Compacta una línea del tablero en una sola pasada, con las mismas reglas
+     * que Puzzle: las fichas que no deslizan y los huecos detienen la
+     * compactación y detrás de un hueco las fichas caen.
+     *
+     * @param first el índice de la celda del borde hacia el que se inclina
+     * @param step la distancia entre dos celdas consecutivas de la línea
+     * @param length la cantidad de celdas de la línea
+     */
+    private void tiltLine(int first, int step, int length) {
+        int free = first;
+        boolean sinking = false;
+        for (int i = 0, index = first; i < length; i++, index += step) {
+            byte cell = cells[index];
+            if (cell == EMPTY) {
+                continue;
+            }
+            if (kind(cell) != FICHA) {
+                sinking = kind(cell) == HOLE;
+                free = index + step;
+                continue;
+            }
+            if (sinking) {
+                cells[index] = EMPTY;
+                hash ^= Zobrist.key(index, cell);
+                continue;
+            }
+            if (free != index) {
+                cells[index] = EMPTY;
+                cells[free] = cell;
+                hash ^= Zobrist.key(index, cell) ^ Zobrist.key(free, cell);
+            }
+            free += step;
+        }
+    }
+
+    /**
+     * Calcula, sin simular las inclinaciones, qué celdas ocupadas no se mueven
+     * al inclinar en ninguna de las cuatro direcciones. Para cada dirección se
+     * marcan las celdas que se quedan en su lugar y el resultado es la
+     * intersección de las cuatro marcas.
+     *
+     * @return las celdas (fila * ancho + columna) que no se mueven
+     */
+    public BitSet immovableCells() {
+        BitSet immovable = staying('l');
+        immovable.and(staying('r'));
+        immovable.and(staying('u'));
+        immovable.and(staying('d'));
+        return immovable;
+    }
+
+    /**
+     * Marca las celdas ocupadas que se quedan en su lugar al inclinar en una
+     * dirección.
+     */
+    private BitSet staying(char direction) {
+        BitSet staying = new BitSet(cells.length);
+        switch (direction) {
+            case 'l':
+                for (int row = 0; row < h; row++) {
+                    markStaying(staying, row * w, 1, w);
+                }
+                break;
+            case 'r':
+                for (int row = 0; row < h; row++) {
+                    markStaying(staying, row * w + w - 1, -1, w);
+                }
+                break;
+            case 'u':
+                for (int column = 0; column < w; column++) {
+                    markStaying(staying, column, w, h);
+                }
+                break;
+            default:
+                for (int column = 0; column < w; column++) {
+                    markStaying(staying, (h - 1) * w + column, -w, h);
+                }
+        }
+        return staying;
+    }
+
+    /**
+     * Recorre una línea desde el borde hacia el que se inclina, con las mismas
+     * reglas que tiltLine. Las fichas que no deslizan siempre se quedan. Una
+     * ficha que desliza se queda solo si todas las celdas entre ella y lo que
+     * la detiene (el borde o una ficha que no desliza, pero no un hueco) están
+     * ocupadas.
+     *
+     * @param staying donde se marcan las celdas que se quedan
+     * @param first el índice de la celda del borde hacia el que se inclina
+     * @param step la distancia entre dos celdas consecutivas de la línea
+     * @param length la cantidad de celdas de la línea
+     */
+    private void markStaying(BitSet staying, int first, int step, int length) {
+        boolean packed = true;
+        for (int i = 0, index = first; i < length; i++, index += step) {
+            byte cell = cells[index];
+            if (cell == EMPTY) {
+                packed = false;
+            } else if (kind(cell) != FICHA) {
+                staying.set(index);
+                packed = kind(cell) != HOLE;
+            } else if (packed) {
+                staying.set(index);
+            }
+        }
+    }
+
+    /**
+     * Cuenta las celdas cuyo contenido no coincide con el tablero objetivo:
+     * una está vacía y la otra no, o ambas tienen fichas de distinto carácter.
+     *
+     * @param goal el tablero objetivo
+     * @return el número de fichas mal colocadas
+     */
+    public int misPlacedTiles(PackedBoard goal) {
+        int misPlacedCount = 0;
+        byte[] target = goal.cells;
+        for (int i = 0; i < cells.length; i++) {
+            byte cell = cells[i];
+            byte expected = target[i];
+            if ((cell == EMPTY) != (expected == EMPTY) || color(cell) != color(expected)) {
+                misPlacedCount++;
+            }
+        }
+        return misPlacedCount;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PackedBoard)) {
+            return false;
+        }
+        PackedBoard board = (PackedBoard) other;
+        return hash == board.hash && h == board.h && w == board.w && Arrays.equals(cells, board.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
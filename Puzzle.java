@@ -1,7 +1,6 @@
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.BitSet;
+import java.util.stream.IntStream;
 
 /**
  * Clase que representa el juego de rompecabezas.
@@ -19,21 +18,59 @@ public class Puzzle {
     private Tile[][] ending;  
     private char[][] tablero_inicial;
     private char[][] tablero_final;
-    private ArrayList<ArrayList<Tile>> glue;
+    private Glue glue;
+    private BlockerIndex blockers; // huecos y fichas que no deslizan, por fila y columna
     private Rectangle initialBoard; // Tablero inicial
     private Rectangle finalBoard;   
+    private Renderer renderer; // donde se dibujan el tablero y las fichas
+    private BoardView startingView; // dónde se dibujan las fichas de cada tablero
+    private BoardView endingView;
+    private int misplaced;  // celdas del tablero final sin su ficha en el inicial
+    private int mismatches; // celdas donde los dos tableros no coinciden
+    private long startingHash; // hash de Zobrist de cada tablero, como en PackedBoard
+    private long endingHash;
+
 
     public Puzzle(int h, int w) {
+        this(h, w, null);
+    }
+
+    /**
+     * Crea un puzzle vacío que se dibuja en el renderer indicado. Con un
+     * HeadlessRenderer el puzzle funciona sin ventana y sin pausas de animación.
+     *
+     * @param h alto del tablero
+     * @param w ancho del tablero
+     * @param renderer donde se dibujan el tablero y las fichas, o null para usar el Canvas
+     */
+    public Puzzle(int h, int w, Renderer renderer) {
         this.h = h;
         this.w = w;
+        this.renderer = renderer;
+        this.startingView = PuzzleBoardInitializer.startingView(renderer);
+        this.endingView = PuzzleBoardInitializer.endingView(renderer, w);
         this.starting = new Tile[h][w]; 
         this.ending = new Tile[h][w];
-        this.glue = new ArrayList<>();
-        PuzzleBoardInitializer.initializeStartingBoard(this.starting, h, w);
-        PuzzleBoardInitializer.initializeEndingBoard(this.ending, h, w);
+        PuzzleBoardInitializer.initializeStartingBoard(this.starting, h, w, renderer);
+        PuzzleBoardInitializer.initializeEndingBoard(this.ending, h, w, renderer);
+        this.blockers = new BlockerIndex(this.starting);
+        this.glue = new Glue(h, w, renderer);
+        recount();
     }
 
     public Puzzle(char[][] tablero_inicial, char[][] tablero_final) {
+        this(tablero_inicial, tablero_final, (Renderer) null);
+    }
+
+    /**
+     * Crea un puzzle con los tableros inicial y final dados, que se dibuja en
+     * el renderer indicado.
+     *
+     * @param tablero_inicial el tablero inicial
+     * @param tablero_final el tablero final
+     * @param renderer donde se dibujan el tablero y las fichas, o null para usar el Canvas
+     */
+    public Puzzle(char[][] tablero_inicial, char[][] tablero_final, Renderer renderer) {
     if (tablero_inicial == null || tablero_final == null) {
         throw new IllegalArgumentException("Los tableros inicial y final no pueden ser nulos");
     }
@@ -41,7 +78,6 @@ public class Puzzle {
     this.w = tablero_inicial[0].length;
     this.tablero_inicial = new char[h][w];
     this.tablero_final = new char[h][w];
-    this.glue = new ArrayList<>();
     
     for (int row = 0; row < h; row++) {
         for (int column = 0; column < w; column++) {
@@ -49,16 +85,33 @@ public class Puzzle {
             this.tablero_final[row][column] = tablero_final[row][column];
         }
     }
+    this.renderer = renderer;
+    this.startingView = PuzzleBoardInitializer.startingView(renderer);
+    this.endingView = PuzzleBoardInitializer.endingView(renderer, w);
     this.starting = new Tile[h][w];
     this.ending = new Tile[h][w];
 
     // No llamamos a initializeStartingBoard, ya que ya tenemos las fichas
-    PuzzleBoardInitializer.convertCharsToStartingTiles(this.tablero_inicial, this.starting, h, w);
-    PuzzleBoardInitializer.convertCharsToEndingTiles(this.tablero_final, this.ending, h, w);
+    PuzzleBoardInitializer.convertCharsToStartingTiles(this.tablero_inicial, this.starting, h, w, startingView);
+    PuzzleBoardInitializer.convertCharsToEndingTiles(this.tablero_final, this.ending, h, w, endingView);
+    this.blockers = new BlockerIndex(this.starting);
+    this.glue = new Glue(h, w, renderer);
+    recount();
     makeVisible();
 }
 
     public Puzzle(char[][] tablero_final){
+        this(tablero_final, (Renderer) null);
+    }
+
+    /**
+     * Crea un puzzle con el tablero final dado y el inicial vacío, que se
+     * dibuja en el renderer indicado.
+     *
+     * @param tablero_final el tablero final
+     * @param renderer donde se dibujan el tablero y las fichas, o null para usar el Canvas
+     */
+    public Puzzle(char[][] tablero_final, Renderer renderer){
         if (tablero_final == null) {
             throw new IllegalArgumentException("El tablero final no puede ser nulo");
         }    
@@ -66,7 +119,6 @@ public class Puzzle {
         this.w = tablero_final[0].length;
         this.tablero_final = new char[h][w];
         this.tablero_inicial = new char[h][w];  
-        this.glue = new ArrayList<>();
 
         for (int row = 0; row < h; row++) {
             for (int column = 0; column < w; column++) {
@@ -75,11 +127,17 @@ public class Puzzle {
             }
         }
 
+        this.renderer = renderer;
+        this.startingView = PuzzleBoardInitializer.startingView(renderer);
+        this.endingView = PuzzleBoardInitializer.endingView(renderer, w);
         this.starting = new Tile[h][w];
         this.ending = new Tile[h][w];
 
-        PuzzleBoardInitializer.initializeStartingBoard(this.starting, h, w);
-        PuzzleBoardInitializer.convertCharsToEndingTiles(this.tablero_final, this.ending, h, w);
+        PuzzleBoardInitializer.initializeStartingBoard(this.starting, h, w, renderer);
+        PuzzleBoardInitializer.convertCharsToEndingTiles(this.tablero_final, this.ending, h, w, endingView);
+        this.blockers = new BlockerIndex(this.starting);
+        this.glue = new Glue(h, w, renderer);
+        recount();
         makeVisible();
     }
 
@@ -100,9 +158,10 @@ public void addTile(int row, int column, char tileChar) {
             return;
         }
         String color = PuzzleBoardInitializer.getColorForTile(tileChar);
-        Tile tile = new Tile(50, 50, column * 50, row * 50, color, tileChar);
+        Tile tile = new Tile(row, column, color, tileChar, startingView);
         tile.makeVisible();
-        starting[row][column] = tile; 
+        setCell(row, column, tile);
+        blockers.update(row, column, tile);
     } else {
         System.out.println("Coordenadas fuera de los límites del tablero.");
     }
@@ -118,12 +177,14 @@ public void addTile(int row, int column, char tileChar) {
 public void deleteTile(int row, int column) {
     if (row >= 0 && row < h && column >= 0 && column < w) {
         if (starting[row][column] != null) {
-            if(starting[row][column].getTypet().equals("Fixed")){
+            if(!starting[row][column].getKind().isDeletable()){
                 System.out.println("La ficha es de tipo Fixed y no puede ser eliminada");
                 return;
             }
+            glue.removeTile(starting[row][column], row, column);
             starting[row][column].makeInvisible(); 
-            starting[row][column] = null; 
+            setCell(row, column, null);
+            blockers.update(row, column, null);
         } else {
             System.out.println("No hay ficha en la posición indicada.");
         }
@@ -140,53 +201,38 @@ public void deleteTile(int row, int column) {
  * @param col la columna de la ficha a pegar
  */
 public void addGlue(int row, int col) {
-    Tile tile = starting[row][col]; // Usar starting para acceder a la ficha
-    ArrayList<Tile> adjacentTiles = getAdjacentTiles(row, col);
-    
-    for (Tile adjacentTile : adjacentTiles) {
-        Glue.addGlue(tile, adjacentTiles); // Pasar una ficha y una ficha adyacente
-    }
+    glue.addGlue(starting, row, col);
 }
 
 /**
  * Elimina el pegamento de la ficha en la posición especificada.
- * Verifica que la posición esté dentro de los límites y elimina el pegamento de las fichas adyacentes.
+ * Verifica que la posición esté dentro de los límites y despega la ficha de su grupo.
  *
  * @param row la fila de la ficha a deshacer el pegado
  * @param col la columna de la ficha a deshacer el pegado
  */
 public void deleteGlue(int row, int col) {
-    Tile tile = starting[row][col]; 
-    ArrayList<Tile> adjacentTiles = getAdjacentTiles(row, col);
-    
-    for (Tile adjacentTile : adjacentTiles) {
-        Glue.deleteGlue(tile, adjacentTiles); // Pasar una ficha y una ficha adyacente
-    }
+    glue.deleteGlue(starting, row, col);
 }
 
 /**
- * Obtiene las fichas adyacentes a la posición especificada.
- * Devuelve una lista de fichas que están adyacentes y visibles.
+ * Obtiene los grupos de fichas pegadas del tablero inicial.
+ *
+ * @return una lista con las fichas de cada grupo
+ */
+public ArrayList<ArrayList<Tile>> getGlue() {
+    return glue.getGlueGroups(starting);
+}
+
+/**
+ * Verifica si la ficha en la posición especificada está pegada.
  *
  * @param row la fila de la ficha
  * @param column la columna de la ficha
- * @return una lista de fichas adyacentes
+ * @return true si la ficha está pegada, false en caso contrario
  */
-private ArrayList<Tile> getAdjacentTiles(int row, int column) {
-    ArrayList<Tile> adjacentTiles = new ArrayList<>();
-    if (row > 0 && starting[row - 1][column] != null) { 
-        adjacentTiles.add(starting[row - 1][column]);
-    }
-    if (row < starting.length - 1 && starting[row + 1][column] != null) {
-        adjacentTiles.add(starting[row + 1][column]);
-    }
-    if (column > 0 && starting[row][column - 1] != null) { 
-        adjacentTiles.add(starting[row][column - 1]);
-    }
-    if (column < starting[0].length - 1 && starting[row][column + 1] != null) { 
-        adjacentTiles.add(starting[row][column + 1]);
-    }
-    return adjacentTiles;
+public boolean isGlued(int row, int column) {
+    return glue.isGlued(row, column);
 }
 
    /**
@@ -199,15 +245,19 @@ private ArrayList<Tile> getAdjacentTiles(int row, int column) {
 public void makeHole(int row, int column) {
     if (row >= 0 && row < h && column >= 0 && column < w) {
         Tile existingTile = starting[row][column];
-        if (existingTile != null && "hole".equals(existingTile.getTypet())) {
+        if (existingTile != null && existingTile.getKind().isHole()) {
             System.out.println("Ya hay un hueco en esta posición.");
             return;
         }
 
-        String color = "white"; 
-        Hole holeTile = new Hole(50, 50, column * 50, row * 50);
+        if (existingTile != null) {
+            glue.removeTile(existingTile, row, column);
+            existingTile.makeInvisible();
+        }
+        Hole holeTile = new Hole(row, column, startingView);
         holeTile.makeVisible(); 
-        starting[row][column] = holeTile; 
+        setCell(row, column, holeTile);
+        blockers.update(row, column, holeTile);
 
         System.out.println("Hueco creado en (" + row + ", " + column + ").");
     } else {
@@ -234,27 +284,28 @@ public void relocate(int[] from, int[] to) {
             System.out.println("No hay ficha en la posición de origen.");
             return; 
         }
-        if(starting[fromRow][fromColumn].getTypet().equals("Fixed")){
+        if(!starting[fromRow][fromColumn].getKind().isDeletable()){
                 System.out.println("La ficha es de tipo Fixed y no puede ser eliminada");
                 return;
             }
-        if (starting[fromRow][fromColumn].getTypet().equals("hole")) {
+        if (starting[fromRow][fromColumn].getKind().isHole()) {
             return;
         }
-        if(starting[toRow][toColumn] == null && starting[fromRow][fromColumn].getTypet().equals("Flying") && starting[toRow][toColumn].getTypet().equals("hole")){
-            Tile tile = starting[fromRow][fromColumn];
-            starting[toRow][toColumn] = tile;
-            starting[fromRow][fromColumn] = null;
-            tile.setPosition(toColumn * 50, toRow * 50);
+        if(starting[toRow][toColumn] != null && starting[toRow][toColumn].getKind().isHole() && !starting[fromRow][fromColumn].getKind().fallsIntoHole()){
+            System.out.println("La ficha no cae en el hueco y no puede ocupar su lugar.");
+            return;
         }
         if (starting[toRow][toColumn] == null) {
             Tile tile = starting[fromRow][fromColumn];
-            starting[toRow][toColumn] = tile;
-            starting[fromRow][fromColumn] = null;
-            tile.setPosition(toColumn * 50, toRow * 50);
+            setCell(toRow, toColumn, tile);
+            setCell(fromRow, fromColumn, null);
+            blockers.update(fromRow, fromColumn, null);
+            blockers.update(toRow, toColumn, tile);
+            glue.moveTile(tile, fromRow, fromColumn, toRow, toColumn);
+            tile.moveTo(toRow, toColumn);
         } 
         
-        else if (starting[toRow][toColumn].getTypet().equals("hole")) {
+        else if (starting[toRow][toColumn].getKind().isHole()) {
             deleteTile(fromRow, fromColumn); 
         }
     } else {
@@ -265,59 +316,56 @@ public void relocate(int[] from, int[] to) {
 /**
  * Intercambia las fichas entre los tableros inicial y final.
  * Mueve cada ficha del tablero final al inicial y viceversa.
+ * El pegamento es solo del tablero inicial, así que al intercambiar se quita.
  */
 public void exchange() {
-    int spacing = 50; 
-    int finalOffsetX = w * 50 + spacing;  
+    Renderer frame = renderer();
+    frame.beginFrame();
+    try {
+        Tile[][] tempStarting = new Tile[h][w]; 
 
-    Tile[][] tempStarting = new Tile[h][w]; 
+        for (int row = 0; row < h; row++) {
+            for (int column = 0; column < w; column++) {
+                tempStarting[row][column] = starting[row][column];
 
-    for (int row = 0; row < h; row++) {
-        for (int column = 0; column < w; column++) {
-            tempStarting[row][column] = starting[row][column];
+                if (starting[row][column] != null) {
+                    starting[row][column].moveTo(endingView, row, column);
+                }
+                if (ending[row][column] != null) {
+                    ending[row][column].moveTo(startingView, row, column);
+                }
 
-            if (starting[row][column] != null) {
-                starting[row][column].setPosition(column * 50 + finalOffsetX, row * 50);
+                starting[row][column] = ending[row][column];
+                ending[row][column] = tempStarting[row][column];
             }
-            if (ending[row][column] != null) {
-                ending[row][column].setPosition(column * 50, row * 50);
-            }
-
-            starting[row][column] = ending[row][column];
-            ending[row][column] = tempStarting[row][column];
         }
+        glue.clear();
+        blockers = new BlockerIndex(starting);
+        recount();
+    } finally {
+        frame.commitFrame();
     }
 }
 
 /**
  * Realiza un "tilt" inteligente usando la función misPlacedTiles().
- * Determina la dirección que minimiza la cantidad de fichas fuera de lugar.
+ * Determina la dirección que minimiza la cantidad de fichas fuera de lugar,
+ * simulando las cuatro direcciones en paralelo sobre copias del tablero.
  */
-public void tilt() {
+public synchronized void tilt() {
     Simulator simulator = new Simulator(this);
-    Tile[][] copy = gameCopy();
-    simulator.tiltSimulator('l', copy, this);
-    int leftDiff = misPlacedTiles(copy);
-    copy = gameCopy();
-    simulator.tiltSimulator('r', copy, this);
-    int rightDiff = misPlacedTiles(copy);
-    copy = gameCopy();
-    simulator.tiltSimulator('u', copy, this);
-    int upDiff = misPlacedTiles(copy);
-    copy = gameCopy();
-    simulator.tiltSimulator('d', copy, this);
-    int downDiff = misPlacedTiles(copy);
-    
-    int minDiff = Math.min(Math.min(leftDiff, rightDiff), Math.min(upDiff, downDiff));
-    if (minDiff == leftDiff) {
-        tilt('l');
-    } else if (minDiff == rightDiff) {
-        tilt('r');
-    } else if (minDiff == upDiff) {
-        tilt('u');
-    } else if (minDiff == downDiff) {
-        tilt('d');
+    char[] directions = {'l', 'r', 'u', 'd'};
+    int[] diffs = IntStream.range(0, directions.length).parallel()
+        .map(i -> simulator.misPlacedAfterTilt(directions[i]))
+        .toArray();
+
+    int best = 0;
+    for (int i = 1; i < directions.length; i++) {
+        if (diffs[i] < diffs[best]) {
+            best = i;
+        }
     }
+    tilt(directions[best]);
 }
 
 /**
@@ -326,7 +374,21 @@ public void tilt() {
  *
  * @param direction la dirección en la que se realizará la inclinación ('l', 'r', 'u', 'd')
  */
-public void tilt(char direction) {
+public synchronized void tilt(char direction) {
+    Renderer frame = renderer();
+    frame.beginFrame(); // todas las fichas movidas se muestran en un solo repintado
+    try {
+        tiltBoard(direction);
+    } finally {
+        frame.commitFrame();
+    }
+}
+
+private void tiltBoard(char direction) {
+    if (!glue.isEmpty() && "lrud".indexOf(direction) >= 0) {
+        tiltGlued(direction);
+        return;
+    }
     switch (direction) {
         case 'l':
             tiltLeft();
@@ -346,310 +408,275 @@ public void tilt(char direction) {
 }
     
        
-    /**
- * Realiza la inclinación hacia la izquierda en el tablero.
- * Mueve las fichas a la izquierda y elimina las que caen en un hueco.
+/**
+ * Realiza una inclinación cuando hay fichas pegadas: cada grupo pegado se
+ * desliza como un solo cuerpo hasta que alguna de sus fichas se detiene, o cae
+ * entero si alguna llega antes a un hueco (ver GlueTilt).
+ *
+ * @param direction la dirección de la inclinación ('l', 'r', 'u', 'd')
  */
-private void tiltLeft() {
+private void tiltGlued(char direction) {
+    int[] destination = GlueTilt.destinations(PackedBoard.fromTiles(starting), glue.getGroups(), direction);
+    glue.relocate(starting, destination);
+    Tile[][] moved = new Tile[h][w];
     for (int row = 0; row < h; row++) {
-        boolean moved;
-        do {
-            moved = false;
-            for (int column = 1; column < w; column++) { 
-                if (starting[row][column] != null && starting[row][column].getTypet().equals("ficha")) { 
-                    if (starting[row][column - 1] == null) { 
-                        relocate(new int[]{row, column}, new int[]{row, column - 1}); 
-                        moved = true; 
-                    } else if (isHoleAt(row, column - 1)) { 
-                        deleteTile(row, column); 
-                        break; 
-                    }
-                }
-                if (starting[row][column] != null && starting[row][column].getTypet().equals("Rough")) {
-                    break;
-                }
+        for (int column = 0; column < w; column++) {
+            Tile tile = starting[row][column];
+            if (tile == null) {
+                continue;
+            }
+            int target = destination[row * w + column];
+            if (target < 0) {
+                tile.makeInvisible();
+                continue;
             }
-            moved = moved || canMoveLeft(row);
-        } while (moved); 
+            moved[target / w][target % w] = tile;
+            if (target != row * w + column) {
+                tile.slideTo(target / w, target % w);
+            }
+        }
+    }
+    for (int row = 0; row < h; row++) {
+        System.arraycopy(moved[row], 0, starting[row], 0, w);
     }
+    recount();
 }
 
 /**
- * Verifica si hay fichas que pueden moverse a la izquierda en la fila especificada.
- *
- * @param row la fila que se está evaluando
- * @return true si hay fichas que pueden moverse, false en caso contrario
+ * Realiza la inclinación hacia la izquierda en el tablero.
+ * Compacta cada fila hacia la izquierda y elimina las fichas que caen en un hueco.
  */
-private boolean canMoveLeft(int row) {
-    for (int column = 1; column < w; column++) {
-        if (starting[row][column] != null && starting[row][column].getTypet().equals("ficha") && starting[row][column - 1] == null && starting[row][column].getTypet()!="Rough" && starting[row][column].getTypet()!="Fixed") {
-            return true; 
-        }
+private void tiltLeft() {
+    for (int row = 0; row < h; row++) {
+        tiltLine(row, true, true);
     }
-    return false;
 }
 
 /**
  * Realiza la inclinación hacia la derecha en el tablero.
- * Mueve las fichas a la derecha y elimina las que caen en un hueco.
+ * Compacta cada fila hacia la derecha y elimina las fichas que caen en un hueco.
  */
 private void tiltRight() {
     for (int row = 0; row < h; row++) {
-        boolean moved;
-        do {
-            moved = false;
-            for (int column = w - 2; column >= 0; column--) { 
-                if (starting[row][column] != null && starting[row][column].getTypet().equals("ficha")) {
-                    if (starting[row][column + 1] == null) {
-                        relocate(new int[]{row, column}, new int[]{row, column + 1});
-                        moved = true;
-                    } else if (isHoleAt(row, column + 1)) {
-                        deleteTile(row, column);
-                        break;
-                    }
-                }
-                if (starting[row][column] != null && starting[row][column].getTypet().equals("Rough")) {
-                    break;
-                }
-            }
-            moved = moved || canMoveRight(row);
-        } while (moved);
+        tiltLine(row, true, false);
     }
 }
 
-/**
- * Verifica si hay fichas que pueden moverse a la derecha en la fila especificada.
- *
- * @param row la fila que se está evaluando
- * @return true si hay fichas que pueden moverse, false en caso contrario
- */
-private boolean canMoveRight(int row) {
-    for (int column = w - 2; column >= 0; column--) {
-        if (starting[row][column] != null && starting[row][column].getTypet().equals("ficha") && starting[row][column + 1] == null && starting[row][column].getTypet()!="Rough" && starting[row][column].getTypet()!="Fixed") {
-            return true; 
-        }
-    }
-    return false;
-}
-
 /**
  * Realiza la inclinación hacia arriba en el tablero.
- * Mueve las fichas hacia arriba y elimina las que caen en un hueco.
+ * Compacta cada columna hacia arriba y elimina las fichas que caen en un hueco.
  */
 private void tiltUp() {
     for (int column = 0; column < w; column++) {
-        boolean moved;
-        do {
-            moved = false;
-            for (int row = 1; row < h; row++) { 
-                if (starting[row][column] != null && starting[row][column].getTypet().equals("ficha")) {
-                    if (starting[row - 1][column] == null) { 
-                        relocate(new int[]{row, column}, new int[]{row - 1, column});
-                        moved = true;
-                    } else if (isHoleAt(row - 1, column)) {
-                        deleteTile(row, column);
-                        break;
-                    }
-                }
-                if (starting[row][column] != null && starting[row][column].getTypet().equals("Rough")) {
-                    break;
-                }
-            }
-            moved = moved || canMoveUp(column);
-        } while (moved);
+        tiltLine(column, false, true);
     }
 }
 
-/**
- * Verifica si hay fichas que pueden moverse hacia arriba en la columna especificada.
- *
- * @param column la columna que se está evaluando
- * @return true si hay fichas que pueden moverse, false en caso contrario
- */
-private boolean canMoveUp(int column) {
-    for (int row = 1; row < h; row++) {
-        if (starting[row][column] != null && starting[row][column].getTypet().equals("ficha") && starting[row - 1][column] == null && starting[row][column].getTypet()!="Rough" && starting[row][column].getTypet()!="Fixed") {
-            return true; 
-        }
-    }
-    return false;
-}
-
 /**
  * Realiza la inclinación hacia abajo en el tablero.
- * Mueve las fichas hacia abajo y elimina las que caen en un hueco.
+ * Compacta cada columna hacia abajo y elimina las fichas que caen en un hueco.
  */
 private void tiltDown() {
     for (int column = 0; column < w; column++) {
-        boolean moved;
-        do {
-            moved = false;
-            for (int row = h - 2; row >= 0; row--) { 
-                if (starting[row][column] != null && starting[row][column].getTypet().equals("ficha")) {
-                    if (starting[row + 1][column] == null) { 
-                        relocate(new int[]{row, column}, new int[]{row + 1, column});
-                        moved = true;
-                    } else if (isHoleAt(row + 1, column)) {
-                        deleteTile(row, column);
-                        break;
-                    }
-                }
-                if (starting[row][column] != null && starting[row][column].getTypet().equals("Rough")) {
-                    break;
-                }
-            }
-            moved = moved || canMoveDown(column);
-        } while (moved);
+        tiltLine(column, false, false);
     }
 }
 
 /**
- * Verifica si hay fichas que pueden moverse hacia abajo en la columna especificada.
+ * Compacta una fila o columna en una sola pasada.
+ * Recorre la línea por tramos entre las fichas que no deslizan (Fixed, Rough,
+ * Flying, Freelance) y los huecos, que se buscan en el índice de bloqueos en
+ * vez de revisar el tipo de cada celda. En cada tramo las fichas se colocan
+ * una tras otra desde la celda donde se detienen; si el tramo está detrás de
+ * un hueco, las fichas caen y se eliminan.
  *
- * @param column la columna que se está evaluando
- * @return true si hay fichas que pueden moverse, false en caso contrario
+ * @param line el índice de la fila (si horizontal) o de la columna
+ * @param horizontal true para recorrer una fila, false para una columna
+ * @param forward true para inclinar hacia el índice 0 (izquierda o arriba)
  */
-private boolean canMoveDown(int column) {
-    for (int row = h - 2; row >= 0; row--) {
-        if (starting[row][column] != null && starting[row][column].getTypet().equals("ficha") && starting[row + 1][column] == null && starting[row][column].getTypet()!="Rough" && starting[row][column].getTypet()!="Fixed") {
-            return true; 
+private void tiltLine(int line, boolean horizontal, boolean forward) {
+    int length = horizontal ? w : h;
+    int step = forward ? 1 : -1;
+    int end = forward ? length : -1;
+    int segmentStart = forward ? 0 : length - 1;
+    boolean sinking = false;
+    while (segmentStart != end) {
+        int blocker = blockers.nextBlocker(line, horizontal, segmentStart, forward);
+        int segmentEnd = blocker < 0 ? end : blocker;
+        int free = segmentStart;
+        for (int index = segmentStart; index != segmentEnd; index += step) {
+            int row = horizontal ? line : index;
+            int column = horizontal ? index : line;
+            Tile tile = starting[row][column];
+            if (tile == null) {
+                continue;
+            }
+            if (sinking) {
+                glue.removeTile(tile, row, column);
+                tile.makeInvisible();
+                setCell(row, column, null);
+                continue;
+            }
+            if (free != index) {
+                int toRow = horizontal ? line : free;
+                int toColumn = horizontal ? free : line;
+                setCell(toRow, toColumn, tile);
+                setCell(row, column, null);
+                glue.moveTile(tile, row, column, toRow, toColumn);
+                tile.slideTo(toRow, toColumn);
+            }
+            free += step;
+        }
+        if (blocker < 0) {
+            break;
         }
+        sinking = horizontal ? blockers.isHole(line, blocker) : blockers.isHole(blocker, line);
+        segmentStart = blocker + step;
     }
-    return false;
-}
-
-/**
- * Verifica si hay un hueco en la posición especificada.
- *
- * @param row la fila de la posición
- * @param column la columna de la posición
- * @return true si hay un hueco, false en caso contrario
- */
-private boolean isHoleAt(int row, int column) {
-    return row >= 0 && row < h && column >= 0 && column < w && starting[row][column] != null && "hole".equals(starting[row][column].getTypet());
 }
 
 /**
  * Cuenta el número de fichas mal colocadas en el tablero.
+ * El conteo se actualiza con cada cambio de celda, así que consultarlo no
+ * recorre el tablero.
  *
  * @return el número de fichas mal colocadas
  */
 public int misPlacedTiles() {
-    int misPlacedCount = 0;
-
-    for (int row = 0; row < h; row++) {
-        for (int column = 0; column < w; column++) {      
-            if (ending[row][column] != null) {
-                if (starting[row][column] == null || !starting[row][column].getColor().equals(ending[row][column].getColor())) {
-                    misPlacedCount++; 
-                }
-            }
-        }
-    }
-
-    return misPlacedCount;
+    return misplaced;
 }
 
 /**
- * Cuenta el número de fichas mal colocadas en una copia del tablero.
+ * Cambia la ficha de una celda del tablero inicial, actualizando los
+ * contadores de fichas mal colocadas y de diferencias con el tablero final y
+ * el hash del tablero.
  *
- * @param startingCopy la copia del tablero inicial
- * @return el número de fichas mal colocadas
+ * @param row la fila de la celda
+ * @param column la columna de la celda
+ * @param tile la nueva ficha, o null para dejar la celda vacía
  */
-private int misPlacedTiles(Tile[][] startingCopy) {
-    int misPlacedCount = 0;
+private void setCell(int row, int column, Tile tile) {
+    misplaced -= misplacedAt(row, column);
+    mismatches -= mismatchAt(row, column);
+    startingHash ^= cellKey(row, column, starting[row][column]) ^ cellKey(row, column, tile);
+    starting[row][column] = tile;
+    misplaced += misplacedAt(row, column);
+    mismatches += mismatchAt(row, column);
+}
 
+/**
+ * Cuenta de nuevo las fichas mal colocadas y las diferencias, y recalcula
+ * los hashes, recorriendo todo el tablero, después de cambios que tocan todas
+ * las celdas.
+ */
+private void recount() {
+    misplaced = 0;
+    mismatches = 0;
+    startingHash = 0;
+    endingHash = 0;
     for (int row = 0; row < h; row++) {
-        for (int column = 0; column < w; column++) {     
-            if ((startingCopy[row][column] != null && ending[row][column] == null) || 
-                (ending[row][column] != null && startingCopy[row][column] == null) ||
-                (startingCopy[row][column] != null && !startingCopy[row][column].getColor().equals(ending[row][column].getColor()))) {
-                misPlacedCount++;
-            }
+        for (int column = 0; column < w; column++) {
+            misplaced += misplacedAt(row, column);
+            mismatches += mismatchAt(row, column);
+            startingHash ^= cellKey(row, column, starting[row][column]);
+            endingHash ^= cellKey(row, column, ending[row][column]);
         }
     }
-
-    return misPlacedCount;
 }
-    
-        
+
 /**
- * Obtiene una lista de fichas fijas que no se pueden mover.
- *
- * @return una lista de coordenadas de las fichas fijas
+ * Obtiene la clave de Zobrist de una ficha en una celda, 0 si está vacía.
  */
-public List<int[]> fixedTiles() {
-    Simulator simulator = new Simulator(this);
-    List<int[]> allImmovableTiles = new ArrayList<>();
-    char[] directions = {'L', 'R', 'U', 'D'};
-
-
-    for (char direction : directions) {
-        Tile[][] copyboard = gameCopy();
-        simulator.tiltSimulator(direction, copyboard, this); 
-
-        for (int row = 0; row < h; row++) {
-            for (int column = 0; column < w; column++) {
-                Tile original = starting[row][column];
-                Tile current = copyboard[row][column];
-
-                if (original != null && current != null && original.equals(current)) {
-                    allImmovableTiles.add(new int[]{row, column});
-                }
-            }
-        }
-    }
-
+private long cellKey(int row, int column, Tile tile) {
+    return tile == null ? 0 : Zobrist.key(row * w + column, tile.getCode());
+}
 
-    Map<String, Integer> coordinateCount = new HashMap<>();
-    for (int[] coords : allImmovableTiles) {
-        String key = coords[0] + "," + coords[1];  
-        coordinateCount.put(key, coordinateCount.getOrDefault(key, 0) + 1);
+/**
+ * Indica si la celda del tablero final tiene ficha y en el inicial no está
+ * una ficha de su color.
+ */
+private int misplacedAt(int row, int column) {
+    Tile target = ending[row][column];
+    if (target == null) {
+        return 0;
     }
+    Tile current = starting[row][column];
+    return current == null || !current.getColor().equals(target.getColor()) ? 1 : 0;
+}
 
- 
-    List<int[]> finalImmovableTiles = new ArrayList<>();
-    for (Map.Entry<String, Integer> entry : coordinateCount.entrySet()) {
-        if (entry.getValue() == 4) {
-            String[] parts = entry.getKey().split(",");
-            finalImmovableTiles.add(new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])});
-        }
+/**
+ * Indica si la celda es distinta en los dos tableros (una está vacía y la
+ * otra no, o las fichas son de distinto tipo).
+ */
+private int mismatchAt(int row, int column) {
+    Tile current = starting[row][column];
+    Tile target = ending[row][column];
+    if (current == null || target == null) {
+        return current == target ? 0 : 1;
     }
+    return current.getType() != target.getType() || current.getKind() != target.getKind() ? 1 : 0;
+}
 
-    return finalImmovableTiles;
+/**
+ * Obtiene las fichas que no se mueven al inclinar en ninguna dirección.
+ * Se calculan en una sola pasada por cada dirección sobre el tablero
+ * compacto, sin simular las inclinaciones; con fichas pegadas se usan los
+ * movimientos de GlueTilt.
+ *
+ * @return las coordenadas {fila, columna} de las fichas fijas, por filas
+ */
+public int[][] fixedTiles() {
+    PackedBoard board = PackedBoard.fromTiles(starting);
+    BitSet immovable = glue.isEmpty() ? board.immovableCells()
+        : GlueTilt.immovableCells(board, glue.getGroups());
+    int[][] coordinates = new int[immovable.cardinality()][];
+    int count = 0;
+    for (int cell = immovable.nextSetBit(0); cell >= 0; cell = immovable.nextSetBit(cell + 1)) {
+        coordinates[count++] = new int[]{cell / w, cell % w};
+    }
+    return coordinates;
 }
 
 /**
  * Verifica si el tablero actual es el objetivo deseado.
+ * Las diferencias entre los tableros se cuentan con cada cambio de celda, así
+ * que la verificación no recorre el tablero.
  *
  * @return true si el tablero actual coincide con el objetivo, false en caso contrario
  */
 public boolean isGoal() {
-    for (int row = 0; row < h; row++) {
-        for (int column = 0; column < w; column++) {
-            Tile currentTile = starting[row][column];
-            Tile targetTile = ending[row][column];
-
-            if ((currentTile == null && targetTile != null) || 
-                (currentTile != null && targetTile == null) ||
-                (currentTile != null && targetTile != null && 
-                    (currentTile.getType() != targetTile.getType() || 
-                    !currentTile.getTypet().equals(targetTile.getTypet())))) {
-                return false; 
-            }
-        }
-    }
-    return true; 
+    return mismatches == 0; 
 }
+/**
+ * Obtiene el hash de Zobrist del tablero inicial, el mismo que tendría su
+ * PackedBoard. Se actualiza con cada cambio de celda, así que sirve para
+ * detectar estados repetidos sin recorrer el tablero.
+ *
+ * @return el hash del tablero inicial
+ */
+public long boardHash() {
+    return startingHash;
+}
+
 /**
  * Verifica si ambos tableros son iguales
  * retorna true si lo son, false si no
+ *
+ * Primero compara los hashes de los tableros; solo si coinciden se comparan
+ * las celdas una por una, con la misma regla que isGoal.
  */
 public boolean ok(){
-    if(starting == ending){
-    return true;
+    if (startingHash != endingHash) {
+        return false;
+    }
+    for (int row = 0; row < h; row++) {
+        for (int column = 0; column < w; column++) {
+            if (mismatchAt(row, column) != 0) {
+                return false;
+            }
+        }
     }
-    return false;
+    return true;
 }
 
 
@@ -673,20 +700,26 @@ public Tile[][] actualArrangement() {
  * Hace visibles todas las fichas del tablero inicial y final.
  */
 public void makeVisible() {
-    for (int row = 0; row < h; row++) {
-        for (int column = 0; column < w; column++) {
-            if (starting[row][column] != null) {
-                starting[row][column].makeVisible();
+    Renderer frame = renderer();
+    frame.beginFrame();
+    try {
+        for (int row = 0; row < h; row++) {
+            for (int column = 0; column < w; column++) {
+                if (starting[row][column] != null) {
+                    starting[row][column].makeVisible();
+                }
             }
         }
-    }
     
-    for (int row = 0; row < h; row++) {
-        for (int column = 0; column < w; column++) {
-            if (ending[row][column] != null) {
-                ending[row][column].makeVisible();
+        for (int row = 0; row < h; row++) {
+            for (int column = 0; column < w; column++) {
+                if (ending[row][column] != null) {
+                    ending[row][column].makeVisible();
+                }
             }
         }
+    } finally {
+        frame.commitFrame();
     }
 }
 
@@ -694,47 +727,56 @@ public void makeVisible() {
  * Hace invisibles todas las fichas del tablero inicial y final.
  */
 public void makeInvisible() {
-    for (int row = 0; row < h; row++) { 
-        for (int column = 0; column < w; column++) {
-            if (starting[row][column] != null) {
-                starting[row][column].makeInvisible(); 
+    Renderer frame = renderer();
+    frame.beginFrame();
+    try {
+        for (int row = 0; row < h; row++) { 
+            for (int column = 0; column < w; column++) {
+                if (starting[row][column] != null) {
+                    starting[row][column].makeInvisible(); 
+                }
             }
         }
-    }
 
-    for (int row = 0; row < h; row++) {
-        for (int column = 0; column < w; column++) {
-            if (ending[row][column] != null) {
-                ending[row][column].makeInvisible();
+        for (int row = 0; row < h; row++) {
+            for (int column = 0; column < w; column++) {
+                if (ending[row][column] != null) {
+                    ending[row][column].makeInvisible();
+                }
             }
         }
+    } finally {
+        frame.commitFrame();
     }
 }
 
 /**
- * Crea una copia del tablero actual.
- *
- * @return una copia del tablero
- */
-private Tile[][] gameCopy() {
-    Tile[][] copy = new Tile[starting.length][starting[0].length];
-    for (int h = 0; h < starting.length; h++) {
-        for (int w = 0; w < starting[0].length; w++) {
-            if (starting[h][w] != null) {
-                copy[h][w] = new Tile(
-                    starting[h][w].getWidth(), 
-                    starting[h][w].getHeight(), 
-                    starting[h][w].getXPosition(), 
-                    starting[h][w].getYPosition(), 
-                    starting[h][w].getColor(), 
-                    starting[h][w].getType()    
-                );
-            }
-        }
-    }
-    return copy;
+ * Obtiene el renderer del puzzle; si no se indicó ninguno, el Canvas.
+ */
+private Renderer renderer() {
+    return renderer != null ? renderer : Canvas.getCanvas();
 }
+
 Tile[][] getStarting(){
     return starting;
 }
+Tile[][] getEnding(){
+    return ending;
+}
+
+/**
+ * Cambia la ficha de una celda del tablero final, actualizando los contadores.
+ * Los tableros solo se deben modificar con los métodos del Puzzle.
+ */
+void setEndingTile(int row, int column, Tile tile){
+    misplaced -= misplacedAt(row, column);
+    mismatches -= mismatchAt(row, column);
+    endingHash ^= cellKey(row, column, ending[row][column]) ^ cellKey(row, column, tile);
+    ending[row][column] = tile;
+    misplaced += misplacedAt(row, column);
+    mismatches += mismatchAt(row, column);
+}
+Glue getGlueState(){
+    return glue;
+}
 }
\ No newline at end of file
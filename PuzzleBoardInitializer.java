@@ -4,9 +4,10 @@ public class PuzzleBoardInitializer {
 
     /**
      * Inicializa un tablero en el arreglo `starting` y muestra el rectángulo en la interfaz.
+     * Todas las figuras se dibujan en el renderer indicado.
      */
-    public static void initializeStartingBoard(Tile[][] starting, int h, int w) {
-        Rectangle board = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, 0, 0, "black");
+    public static void initializeStartingBoard(Tile[][] starting, int h, int w, Renderer renderer) {
+        Rectangle board = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, 0, 0, "black", renderer);
         board.makeVisible();
         for (int row = 0; row < h; row++) {
             for (int column = 0; column < w; column++) {
@@ -18,10 +19,10 @@ public class PuzzleBoardInitializer {
     /**
      * Inicializa el tablero `ending` con el rectángulo visible en una posición desplazada.
      */
-    public static void initializeEndingBoard(Tile[][] ending, int h, int w) {
+    public static void initializeEndingBoard(Tile[][] ending, int h, int w, Renderer renderer) {
         int spacing = TILE_SIZE;  
         int finalOffsetX = w * TILE_SIZE + spacing; 
-        Rectangle finalBoard = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, finalOffsetX, 0, "black");
+        Rectangle finalBoard = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, finalOffsetX, 0, "black", renderer);
         finalBoard.makeVisible();
         for (int row = 0; row < h; row++) {
             for (int column = 0; column < w; column++) {
@@ -30,15 +31,30 @@ public class PuzzleBoardInitializer {
         }
     }
 
+    /**
+     * Crea la vista del tablero inicial, en la esquina del lienzo.
+     */
+    public static BoardView startingView(Renderer renderer) {
+        return new BoardView(renderer, 0, 0, TILE_SIZE, TILE_SIZE);
+    }
+
+    /**
+     * Crea la vista del tablero final, a la derecha del inicial y separado por una celda.
+     */
+    public static BoardView endingView(Renderer renderer, int w) {
+        return new BoardView(renderer, w * TILE_SIZE + TILE_SIZE, 0, TILE_SIZE, TILE_SIZE);
+    }
+
     /**
      * Convierte un tablero de caracteres a objetos Tile para el tablero inicial.
      */
-    public static void convertCharsToStartingTiles(char[][] tableroInicial, Tile[][] starting, int h, int w) {
-        Rectangle board = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, 0, 0, "black");
+    public static void convertCharsToStartingTiles(char[][] tableroInicial, Tile[][] starting, int h, int w, BoardView view) {
+        Renderer renderer = view.getRenderer();
+        Rectangle board = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, 0, 0, "black", renderer);
         board.makeVisible();
         int spacing = TILE_SIZE;  
         int finalOffsetX = w * TILE_SIZE + spacing; 
-        Rectangle finalBoard = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, finalOffsetX, 0, "black");
+        Rectangle finalBoard = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, finalOffsetX, 0, "black", renderer);
         finalBoard.makeVisible();
         for (int row = 0; row < h; row++) {
             for (int column = 0; column < w; column++) {
@@ -47,7 +63,7 @@ public class PuzzleBoardInitializer {
                     starting[row][column] = null;
                 } else {
                     String color = getColorForTile(currentChar);
-                    starting[row][column] = new Tile(TILE_SIZE, TILE_SIZE, column * TILE_SIZE, row * TILE_SIZE, color, currentChar);
+                    starting[row][column] = new Tile(row, column, color, currentChar, view);
                 }
             }
         }
@@ -56,12 +72,13 @@ public class PuzzleBoardInitializer {
     /**
      * Convierte un tablero de caracteres a objetos Tile para el tablero final.
      */
-    public static void convertCharsToEndingTiles(char[][] tableroFinal, Tile[][] ending, int h, int w) {
-        Rectangle board = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, 0, 0, "black");
+    public static void convertCharsToEndingTiles(char[][] tableroFinal, Tile[][] ending, int h, int w, BoardView view) {
+        Renderer renderer = view.getRenderer();
+        Rectangle board = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, 0, 0, "black", renderer);
         board.makeVisible();
         int spacing = TILE_SIZE;  
         int finalOffsetX = w * TILE_SIZE + spacing; 
-        Rectangle finalBoard = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, finalOffsetX, 0, "black");
+        Rectangle finalBoard = new Rectangle(h * TILE_SIZE, w * TILE_SIZE, finalOffsetX, 0, "black", renderer);
         finalBoard.makeVisible();
         for (int row = 0; row < h; row++) {
             for (int column = 0; column < w; column++) {
@@ -70,7 +87,7 @@ public class PuzzleBoardInitializer {
                     ending[row][column] = null;
                 } else {
                     String color = getColorForTile(currentChar);
-                    ending[row][column] = new Tile(TILE_SIZE, TILE_SIZE, column * TILE_SIZE + finalOffsetX, row * TILE_SIZE, color, currentChar);
+                    ending[row][column] = new Tile(row, column, color, currentChar, view);
                 }
             }
         }
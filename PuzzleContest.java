@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Esta clase resuelve por si sola Puzzle, pasa de el tablero inicial al tablero final
@@ -8,18 +12,117 @@
  *///
 public class PuzzleContest
 {
+    private static final int IDA_MAX_DEPTH = 64;
+
+    private PuzzleSolver solver;
+    private char[] solution;
+
+    /**
+     * Busca la secuencia mínima de inclinaciones entre los dos tableros.
+     *
+     * @param starting el tablero inicial
+     * @param ending el tablero final
+     * @return true si el tablero final es alcanzable
+     */
     public boolean solve(char[][] starting, char[][] ending){
-    Puzzle puzzle = new Puzzle(starting, ending);
-   
-        
-     return false;
+        return solve(starting, ending, "bfs");
+    }
 
+    /**
+     * Busca la secuencia mínima de inclinaciones con el modo de búsqueda dado:
+     * "bfs" (anchura), "astar" (A*), "idastar" (IDA*, con poca memoria y
+     * soluciones de hasta 64 inclinaciones), "bidirectional" (anchura desde
+     * ambos tableros a la vez), "parallel" (anchura con un hilo por núcleo) o
+     * "disk" (anchura con las capas en archivos temporales, para espacios de
+     * estados que no caben en memoria).
+     *
+     * @param starting el tablero inicial
+     * @param ending el tablero final
+     * @param mode el modo de búsqueda
+     * @return true si el tablero final es alcanzable
+     */
+    public boolean solve(char[][] starting, char[][] ending, String mode){
+        solver = new PuzzleSolver(starting, ending);
+        switch (mode) {
+            case "bfs":
+                solution = solver.solveBreadthFirst();
+                break;
+            case "astar":
+                solution = solver.solveAStar();
+                break;
+            case "idastar":
+                solution = solver.solveIdaStar(IDA_MAX_DEPTH);
+                break;
+            case "bidirectional":
+                solution = solver.solveBidirectional();
+                break;
+            case "parallel":
+                solution = solver.solveParallel(Runtime.getRuntime().availableProcessors());
+                break;
+            case "disk":
+                solution = solveOnDisk();
+                break;
+            default:
+                throw new IllegalArgumentException("Modo de búsqueda inválido: " + mode);
+        }
+        return solution != null;
     }
 
+    private char[] solveOnDisk(){
+        try {
+            Path directory = Files.createTempDirectory("puzzle-layers");
+            try {
+                return solver.solveOnDisk(directory);
+            } finally {
+                Files.deleteIfExists(directory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el directorio de capas", e);
+        }
+    }
+
+    /**
+     * Resuelve el puzzle y muestra la solución inclinando un Puzzle visible.
+     *
+     * @param starting el tablero inicial
+     * @param ending el tablero final
+     */
     public void simulate(char[][] starting, char[][] ending){
-    Puzzle puzzle = new Puzzle(starting, ending);
-    Puzzle.tilt();
-    
+        if (!solve(starting, ending)) {
+            System.out.println("No se pudo resolver el puzzle.");
+            return;
+        }
+        Puzzle puzzle = new Puzzle(starting, ending);
+        for (char direction : solution) {
+            puzzle.tilt(direction);
+        }
+    }
+
+    /**
+     * Obtiene la solución encontrada por el último solve.
+     *
+     * @return las direcciones de la solución, o null si no hubo solución
+     */
+    public char[] getSolution(){
+        return solution;
+    }
+
+    /**
+     * Obtiene la cantidad de estados expandidos por el último solve.
+     *
+     * @return los estados expandidos
+     */
+    public long getNodesExpanded(){
+        return solver == null ? 0 : solver.getNodesExpanded();
+    }
+
+    /**
+     * Obtiene la velocidad del último solve.
+     *
+     * @return los estados expandidos por segundo
+     */
+    public double getNodesPerSecond(){
+        return solver == null ? 0 : solver.getNodesPerSecond();
     }
 
       public static void main(String[] args) {
@@ -36,12 +139,11 @@ public class PuzzleContest
         };
 
         PuzzleContest contest = new PuzzleContest();
-        contest.simulate(starting, ending);
         if (contest.solve(starting, ending)) {
-            System.out.println("Puzzle resuelto.");
+            System.out.println("Puzzle resuelto: " + new String(contest.getSolution()));
         } else {
             System.out.println("No se pudo resolver el puzzle.");
         }
+        System.out.printf("Nodos expandidos: %d (%.0f nodos/s)%n", contest.getNodesExpanded(), contest.getNodesPerSecond());
     }
 }
-
@@ -0,0 +1,874 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Busca la secuencia mínima de inclinaciones que lleva el tablero inicial al
+ * tablero final.
+ *
+ * La búsqueda en anchura trabaja sobre tableros compactos (PackedBoard). Cada
+ * estado se identifica por su hash de Zobrist, que el tablero mantiene de forma
+ * incremental al inclinarse, y los estados visitados se guardan en un
+ * LongHashSet. Dos tableros distintos con el mismo hash de 64 bits se tratan
+ * como el mismo estado; con hashes de Zobrist esa colisión es muy improbable.
+ *
+ * Además de la búsqueda en anchura ofrece A* e IDA*. Ambas usan una cota
+ * inferior admisible (ver lowerBound) y desempatan por la cantidad de fichas
+ * mal colocadas, igual que Puzzle.misPlacedTiles(). IDA* solo guarda el camino
+ * actual, así que sirve cuando la búsqueda en anchura se queda sin memoria.
+ * La búsqueda bidireccional avanza a la vez desde el tablero inicial y, con
+ * TiltPredecessors, hacia atrás desde el final, hasta que ambas se encuentran.
+ * La búsqueda en anchura paralela reparte cada capa entre los hilos de un
+ * ForkJoinPool, con un conjunto de visitados por franjas (ConcurrentLongHashSet).
+ * Para espacios de estados que no caben en memoria, solveOnDisk guarda las
+ * capas en archivos (ver ExternalSearch).
+ *
+ * @author Arteaga-Hurtado
+ */
+public class PuzzleSolver {
+    private static final char[] DIRECTIONS = {'l', 'r', 'u', 'd'};
+    private static final int COLORS = 16;
+    private static final int UNSOLVABLE = -1;
+    private static final int FOUND = -1;
+    private static final int CHUNK = 2048;
+    private static final long DISK_BUFFER_BYTES = 64L << 20;
+
+    private final PackedBoard start;
+    private final PackedBoard goal;
+    private final int cells;
+    private final int h;
+    private final int w;
+    private final int[] goalRowCounts;
+    private final int[] goalColumnCounts;
+    private final int[] rowCounts;
+    private final int[] columnCounts;
+    private long[][] childKeys;
+    private int foundDepth;
+    private long nodesExpanded;
+    private long elapsedNanos;
+
+    /**
+     * Crea un solucionador para los tableros de caracteres dados.
+     *
+     * @param starting el tablero inicial
+     * @param ending el tablero final
+     */
+    public PuzzleSolver(char[][] starting, char[][] ending) {
+        this(PackedBoard.fromChars(starting), PackedBoard.fromChars(ending));
+    }
+
+    /**
+     * Crea un solucionador para los tableros compactos dados.
+     *
+     * @param start el tablero inicial
+     * @param goal el tablero final
+     */
+    public PuzzleSolver(PackedBoard start, PackedBoard goal) {
+        if (start.getHeight() != goal.getHeight() || start.getWidth() != goal.getWidth()) {
+            throw new IllegalArgumentException("Los tableros deben tener las mismas dimensiones");
+        }
+        this.start = start.copy();
+        this.goal = goal.copy();
+        this.h = start.getHeight();
+        this.w = start.getWidth();
+        this.cells = h * w;
+        this.goalRowCounts = new int[h * COLORS];
+        this.goalColumnCounts = new int[w * COLORS];
+        this.rowCounts = new int[h * COLORS];
+        this.columnCounts = new int[w * COLORS];
+        countColors(goal, goalRowCounts, goalColumnCounts);
+    }
+
+    /**
+     * Busca en anchura la secuencia mínima de inclinaciones.
+     *
+     * @return las direcciones de la solución ('l', 'r', 'u', 'd'), o null si
+     *         el tablero final no es alcanzable
+     */
+    public char[] solveBreadthFirst() {
+        long begin = System.nanoTime();
+        nodesExpanded = 0;
+        try {
+            if (start.equals(goal)) {
+                return new char[0];
+            }
+            LongHashSet visited = new LongHashSet();
+            visited.add(start.hash());
+            int[] parents = new int[1024];
+            byte[] moves = new byte[1024];
+            parents[0] = -1;
+            int nodes = 1;
+
+            BoardList current = new BoardList(cells);
+            BoardList next = new BoardList(cells);
+            current.add(start, 0);
+            PackedBoard state = start.copy();
+            PackedBoard child = start.copy();
+            while (current.size > 0) {
+                for (int i = 0; i < current.size; i++) {
+                    current.load(i, state);
+                    nodesExpanded++;
+                    for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                        state.copyInto(child);
+                        child.tilt(DIRECTIONS[direction]);
+                        if (!visited.add(child.hash())) {
+                            continue;
+                        }
+                        if (nodes == parents.length) {
+                            parents = Arrays.copyOf(parents, nodes * 2);
+                            moves = Arrays.copyOf(moves, nodes * 2);
+                        }
+                        parents[nodes] = current.ids[i];
+                        moves[nodes] = (byte) direction;
+                        if (child.equals(goal)) {
+                            return path(parents, moves, nodes);
+                        }
+                        next.add(child, nodes);
+                        nodes++;
+                    }
+                }
+                BoardList done = current;
+                current = next;
+                next = done;
+                next.size = 0;
+            }
+            return null;
+        } finally {
+            elapsedNanos = System.nanoTime() - begin;
+        }
+    }
+
+    /**
+     * Busca en anchura la secuencia mínima de inclinaciones repartiendo cada
+     * capa entre varios hilos. Cada tarea expande un tramo de la capa y guarda
+     * sus sucesores en su propia lista; al terminar la capa las listas se
+     * unen en orden y reciben sus números de nodo, así que la solución tiene
+     * la misma longitud que la de solveBreadthFirst.
+     *
+     * @param threads la cantidad de hilos
+     * @return las direcciones de la solución, o null si el tablero final no es
+     *         alcanzable
+     */
+    public char[] solveParallel(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("La cantidad de hilos debe ser positiva");
+        }
+        long begin = System.nanoTime();
+        nodesExpanded = 0;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            if (start.equals(goal)) {
+                return new char[0];
+            }
+            ConcurrentLongHashSet visited = new ConcurrentLongHashSet(threads);
+            visited.add(start.hash());
+            AtomicBoolean found = new AtomicBoolean();
+            int[] parents = new int[1024];
+            byte[] moves = new byte[1024];
+            parents[0] = -1;
+            int nodes = 1;
+
+            BoardList current = new BoardList(cells);
+            BoardList next = new BoardList(cells);
+            current.add(start, 0);
+            while (current.size > 0) {
+                List<Expansion> tasks = new ArrayList<>();
+                for (int from = 0; from < current.size; from += CHUNK) {
+                    tasks.add(new Expansion(current, from, Math.min(current.size, from + CHUNK), visited, found));
+                }
+                List<Future<Expansion>> results = pool.invokeAll(tasks);
+                for (Future<Expansion> result : results) {
+                    Expansion expansion = result.get();
+                    nodesExpanded += expansion.expanded;
+                    BoardList successors = expansion.successors;
+                    if (nodes + successors.size > parents.length) {
+                        int capacity = Math.max(parents.length * 2, nodes + successors.size);
+                        parents = Arrays.copyOf(parents, capacity);
+                        moves = Arrays.copyOf(moves, capacity);
+                    }
+                    System.arraycopy(successors.ids, 0, parents, nodes, successors.size);
+                    System.arraycopy(expansion.moves, 0, moves, nodes, successors.size);
+                    if (expansion.goalIndex >= 0) {
+                        return path(parents, moves, nodes + expansion.goalIndex);
+                    }
+                    next.addAll(successors, nodes);
+                    nodes += successors.size;
+                }
+                BoardList done = current;
+                current = next;
+                next = done;
+                next.size = 0;
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló la expansión de una capa", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            elapsedNanos = System.nanoTime() - begin;
+        }
+    }
+
+    /**
+     * Busca en anchura la secuencia mínima de inclinaciones guardando las capas
+     * en archivos del directorio indicado, que se borran al terminar.
+     *
+     * @param directory el directorio para los archivos de capas
+     * @return las direcciones de la solución, o null si el tablero final no es
+     *         alcanzable
+     */
+    public char[] solveOnDisk(Path directory) {
+        return solveOnDisk(directory, DISK_BUFFER_BYTES);
+    }
+
+    /**
+     * Busca en disco ordenando en memoria los sucesores que caben en
+     * bufferBytes bytes.
+     *
+     * @param directory el directorio para los archivos de capas
+     * @param bufferBytes la memoria máxima del buffer de sucesores
+     * @return las direcciones de la solución, o null si el tablero final no es
+     *         alcanzable
+     */
+    public char[] solveOnDisk(Path directory, long bufferBytes) {
+        long begin = System.nanoTime();
+        ExternalSearch search = new ExternalSearch(start, goal, directory, bufferBytes);
+        try {
+            return search.solve();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falló la búsqueda en disco", e);
+        } finally {
+            nodesExpanded = search.getNodesExpanded();
+            elapsedNanos = System.nanoTime() - begin;
+        }
+    }
+
+    /**
+     * Busca la secuencia mínima de inclinaciones avanzando a la vez desde el
+     * tablero inicial (inclinaciones) y desde el final (predecesores). Ambas
+     * búsquedas comparten una tabla hash -> nodo; se expande siempre la capa
+     * más pequeña, y al completar la capa en la que se encuentran se devuelve
+     * el camino más corto que pasa por un estado común.
+     *
+     * Con huecos en el tablero los predecesores no se pueden enumerar, así que
+     * en ese caso se usa la búsqueda en anchura.
+     *
+     * @return las direcciones de la solución, o null si el tablero final no es
+     *         alcanzable
+     */
+    public char[] solveBidirectional() {
+        if (hasHoles(start) || hasHoles(goal)) {
+            return solveBreadthFirst();
+        }
+        long begin = System.nanoTime();
+        nodesExpanded = 0;
+        try {
+            if (start.equals(goal)) {
+                return new char[0];
+            }
+            if (lowerBound(start) == UNSOLVABLE) {
+                return null;
+            }
+            Side forward = new Side(start);
+            Side backward = new Side(goal);
+            LongIntHashMap owners = new LongIntHashMap();
+            owners.put(start.hash(), 0);
+            owners.put(goal.hash(), ~0);
+            PackedBoard[] startTilted = new PackedBoard[DIRECTIONS.length];
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                startTilted[direction] = start.copy();
+                startTilted[direction].tilt(DIRECTIONS[direction]);
+            }
+            TiltPredecessors predecessors = new TiltPredecessors(h, w);
+            PackedBoard state = start.copy();
+            PackedBoard child = start.copy();
+            int[] best = {Integer.MAX_VALUE, -1, -1};
+
+            while (forward.layer.size > 0 && backward.layer.size > 0) {
+                if (forward.layer.size <= backward.layer.size) {
+                    for (int i = 0; i < forward.layer.size; i++) {
+                        forward.layer.load(i, state);
+                        int parent = forward.layer.ids[i];
+                        nodesExpanded++;
+                        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                            state.copyInto(child);
+                            child.tilt(DIRECTIONS[direction]);
+                            int owner = owners.get(child.hash(), Integer.MIN_VALUE);
+                            if (owner >= 0) {
+                                continue;
+                            }
+                            int node = forward.add(child, parent, direction);
+                            if (owner != Integer.MIN_VALUE) {
+                                meet(best, forward, node, backward, ~owner);
+                                continue;
+                            }
+                            owners.put(child.hash(), node);
+                        }
+                    }
+                    forward.advance();
+                } else {
+                    for (int i = 0; i < backward.layer.size; i++) {
+                        backward.layer.load(i, state);
+                        int successor = backward.layer.ids[i];
+                        nodesExpanded++;
+                        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                            int move = direction;
+                            if (startTilted[direction].equals(state)) {
+                                meet(best, forward, 0, backward, backward.add(start, successor, move));
+                            }
+                            predecessors.forEach(state, DIRECTIONS[direction], predecessor -> {
+                                int owner = owners.get(predecessor.hash(), Integer.MIN_VALUE);
+                                if (owner < 0 && owner != Integer.MIN_VALUE) {
+                                    return;
+                                }
+                                int node = backward.add(predecessor, successor, move);
+                                if (owner != Integer.MIN_VALUE) {
+                                    meet(best, forward, owner, backward, node);
+                                    return;
+                                }
+                                owners.put(predecessor.hash(), ~node);
+                            });
+                        }
+                    }
+                    backward.advance();
+                }
+                if (best[0] != Integer.MAX_VALUE) {
+                    return joinPaths(forward, best[1], backward, best[2]);
+                }
+            }
+            return null;
+        } finally {
+            elapsedNanos = System.nanoTime() - begin;
+        }
+    }
+
+    /**
+     * Registra un encuentro entre un nodo hacia adelante y uno hacia atrás que
+     * representan el mismo tablero, si da un camino más corto que el mejor.
+     */
+    private static void meet(int[] best, Side forward, int forwardNode, Side backward, int backwardNode) {
+        int length = forward.depths[forwardNode] + backward.depths[backwardNode];
+        if (length < best[0]) {
+            best[0] = length;
+            best[1] = forwardNode;
+            best[2] = backwardNode;
+        }
+    }
+
+    /**
+     * Une el camino desde el inicio hasta el nodo de encuentro con el camino
+     * desde el encuentro hasta el tablero final.
+     */
+    private static char[] joinPaths(Side forward, int forwardNode, Side backward, int backwardNode) {
+        char[] head = path(forward.links, forward.moves, forwardNode);
+        char[] joined = Arrays.copyOf(head, head.length + backward.depths[backwardNode]);
+        int index = head.length;
+        for (int node = backwardNode; backward.links[node] >= 0; node = backward.links[node]) {
+            joined[index++] = DIRECTIONS[backward.moves[node]];
+        }
+        return joined;
+    }
+
+    private static boolean hasHoles(PackedBoard board) {
+        for (int row = 0; row < board.getHeight(); row++) {
+            for (int column = 0; column < board.getWidth(); column++) {
+                if (PackedBoard.kind(board.get(row, column)) == PackedBoard.HOLE) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Busca con A* la secuencia mínima de inclinaciones. Expande primero los
+     * estados con menor g + lowerBound y, entre ellos, los que tienen menos
+     * fichas mal colocadas.
+     *
+     * @return las direcciones de la solución, o null si el tablero final no es
+     *         alcanzable
+     */
+    public char[] solveAStar() {
+        long begin = System.nanoTime();
+        nodesExpanded = 0;
+        try {
+            int bound = lowerBound(start);
+            if (bound == UNSOLVABLE) {
+                return null;
+            }
+            if (start.equals(goal)) {
+                return new char[0];
+            }
+            BoardList nodes = new BoardList(cells);
+            byte[] moves = new byte[1024];
+            short[] depths = new short[1024];
+            LongHashSet closed = new LongHashSet();
+            LongHeap open = new LongHeap();
+            nodes.add(start, -1);
+            open.push(key(bound, start.misPlacedTiles(goal), 0));
+            PackedBoard state = start.copy();
+            PackedBoard child = start.copy();
+            while (open.size() > 0) {
+                int node = (int) open.pop();
+                nodes.load(node, state);
+                if (!closed.add(state.hash())) {
+                    continue;
+                }
+                if (state.equals(goal)) {
+                    return path(nodes.ids, moves, node);
+                }
+                nodesExpanded++;
+                int depth = depths[node] + 1;
+                for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                    state.copyInto(child);
+                    child.tilt(DIRECTIONS[direction]);
+                    if (closed.contains(child.hash())) {
+                        continue;
+                    }
+                    int childBound = lowerBound(child);
+                    if (childBound == UNSOLVABLE) {
+                        continue;
+                    }
+                    int id = nodes.size;
+                    if (id == moves.length) {
+                        moves = Arrays.copyOf(moves, id * 2);
+                        depths = Arrays.copyOf(depths, id * 2);
+                    }
+                    nodes.add(child, node);
+                    moves[id] = (byte) direction;
+                    depths[id] = (short) depth;
+                    open.push(key(depth + childBound, child.misPlacedTiles(goal), id));
+                }
+            }
+            return null;
+        } finally {
+            elapsedNanos = System.nanoTime() - begin;
+        }
+    }
+
+    /**
+     * Busca con IDA* la secuencia mínima de inclinaciones de hasta maxDepth
+     * movimientos. Repite búsquedas en profundidad con un límite creciente de
+     * g + lowerBound y solo guarda el camino actual, por lo que su memoria es
+     * O(maxDepth) tableros.
+     *
+     * @param maxDepth la longitud máxima de la solución
+     * @return las direcciones de la solución, o null si no hay solución de
+     *         hasta maxDepth movimientos
+     */
+    public char[] solveIdaStar(int maxDepth) {
+        long begin = System.nanoTime();
+        nodesExpanded = 0;
+        try {
+            int bound = lowerBound(start);
+            if (bound == UNSOLVABLE) {
+                return null;
+            }
+            PackedBoard[] stack = new PackedBoard[maxDepth + 1];
+            for (int i = 0; i <= maxDepth; i++) {
+                stack[i] = start.copy();
+            }
+            char[] path = new char[maxDepth];
+            childKeys = new long[maxDepth][DIRECTIONS.length];
+            while (bound <= maxDepth) {
+                int next = depthFirst(stack, path, 0, bound, maxDepth);
+                if (next == FOUND) {
+                    return Arrays.copyOf(path, foundDepth);
+                }
+                if (next == Integer.MAX_VALUE) {
+                    return null;
+                }
+                bound = next;
+            }
+            return null;
+        } finally {
+            elapsedNanos = System.nanoTime() - begin;
+        }
+    }
+
+    /**
+     * Recorre en profundidad desde stack[depth] sin pasar del límite dado.
+     *
+     * @return FOUND si encontró el tablero final, o el menor g + lowerBound que
+     *         superó el límite (Integer.MAX_VALUE si no hubo ninguno)
+     */
+    private int depthFirst(PackedBoard[] stack, char[] path, int depth, int limit, int maxDepth) {
+        PackedBoard state = stack[depth];
+        if (state.equals(goal)) {
+            foundDepth = depth;
+            return FOUND;
+        }
+        if (depth == maxDepth) {
+            return Integer.MAX_VALUE;
+        }
+        nodesExpanded++;
+        long[] children = childKeys[depth];
+        int count = 0;
+        PackedBoard child = stack[depth + 1];
+        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+            state.copyInto(child);
+            child.tilt(DIRECTIONS[direction]);
+            if (onPath(stack, depth, child.hash())) {
+                continue;
+            }
+            int bound = lowerBound(child);
+            if (bound != UNSOLVABLE) {
+                children[count++] = key(depth + 1 + bound, child.misPlacedTiles(goal), direction);
+            }
+        }
+        Arrays.sort(children, 0, count);
+        int next = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            int cost = (int) (children[i] >>> 48);
+            int direction = (int) children[i];
+            if (cost > limit) {
+                next = Math.min(next, cost);
+                continue;
+            }
+            state.copyInto(child);
+            child.tilt(DIRECTIONS[direction]);
+            path[depth] = DIRECTIONS[direction];
+            int result = depthFirst(stack, path, depth + 1, limit, maxDepth);
+            if (result == FOUND) {
+                return FOUND;
+            }
+            next = Math.min(next, result);
+        }
+        return next;
+    }
+
+    /**
+     * Verifica si un estado ya aparece en el camino actual (o si la inclinación
+     * no cambió el tablero).
+     */
+    private static boolean onPath(PackedBoard[] stack, int depth, long hash) {
+        for (int i = depth; i >= 0; i--) {
+            if (stack[i].hash() == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calcula una cota inferior admisible de las inclinaciones que faltan.
+     *
+     * Una inclinación a izquierda o derecha no cambia cuántas fichas de cada
+     * color hay en cada fila, salvo las que caen en un hueco, que solo las
+     * reducen. Por eso, si a alguna fila le faltan fichas de un color respecto al
+     * tablero final, hace falta al menos una inclinación vertical; lo mismo con
+     * las columnas y las inclinaciones horizontales. Si al tablero entero le
+     * faltan fichas de un color, el tablero final no es alcanzable.
+     *
+     * @param board el tablero a evaluar
+     * @return la cota (0, 1 o 2), o UNSOLVABLE si no hay solución
+     */
+    int lowerBound(PackedBoard board) {
+        countColors(board, rowCounts, columnCounts);
+        boolean rowMissing = false;
+        boolean columnMissing = false;
+        for (int color = 1; color < COLORS; color++) {
+            int total = 0;
+            int goalTotal = 0;
+            for (int row = 0; row < h; row++) {
+                int index = row * COLORS + color;
+                total += rowCounts[index];
+                goalTotal += goalRowCounts[index];
+                rowMissing |= rowCounts[index] < goalRowCounts[index];
+            }
+            if (total < goalTotal) {
+                return UNSOLVABLE;
+            }
+            for (int column = 0; column < w; column++) {
+                int index = column * COLORS + color;
+                columnMissing |= columnCounts[index] < goalColumnCounts[index];
+            }
+        }
+        int bound = (rowMissing ? 1 : 0) + (columnMissing ? 1 : 0);
+        if (bound == 0 && !board.equals(goal)) {
+            return 1;
+        }
+        return bound;
+    }
+
+    /**
+     * Cuenta las fichas de cada color por fila y por columna.
+     */
+    private void countColors(PackedBoard board, int[] rows, int[] columns) {
+        Arrays.fill(rows, 0);
+        Arrays.fill(columns, 0);
+        for (int row = 0; row < h; row++) {
+            for (int column = 0; column < w; column++) {
+                byte cell = board.get(row, column);
+                if (cell != PackedBoard.EMPTY && PackedBoard.kind(cell) == PackedBoard.FICHA) {
+                    int color = PackedBoard.color(cell);
+                    rows[row * COLORS + color]++;
+                    columns[column * COLORS + color]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Arma la clave de prioridad: primero el costo estimado, luego las fichas
+     * mal colocadas y por último el número de nodo o de dirección.
+     */
+    private static long key(int cost, int misPlaced, int id) {
+        return (long) Math.min(cost, 0x7FFF) << 48 | (long) Math.min(misPlaced, 0xFFFF) << 32 | id & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Reconstruye la secuencia de inclinaciones que lleva a un nodo.
+     */
+    private static char[] path(int[] parents, byte[] moves, int node) {
+        int length = 0;
+        for (int current = node; parents[current] >= 0; current = parents[current]) {
+            length++;
+        }
+        char[] path = new char[length];
+        for (int current = node; parents[current] >= 0; current = parents[current]) {
+            path[--length] = DIRECTIONS[moves[current]];
+        }
+        return path;
+    }
+
+    /**
+     * Obtiene la cantidad de estados expandidos en la última búsqueda.
+     *
+     * @return los estados expandidos
+     */
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * Obtiene la duración de la última búsqueda.
+     *
+     * @return la duración en nanosegundos
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Obtiene la velocidad de la última búsqueda.
+     *
+     * @return los estados expandidos por segundo
+     */
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodesExpanded * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Una lista de tableros guardados uno tras otro en un solo arreglo de
+     * bytes, junto a su hash y un número asociado (el nodo o su padre).
+     */
+    private static class BoardList {
+        private final int cells;
+        private byte[] boards;
+        private long[] hashes;
+        private int[] ids;
+        private int size;
+
+        private BoardList(int cells) {
+            this.cells = cells;
+            this.boards = new byte[cells * 64];
+            this.hashes = new long[64];
+            this.ids = new int[64];
+        }
+
+        private void add(PackedBoard board, int id) {
+            if (size == ids.length) {
+                if ((long) boards.length * 2 > Integer.MAX_VALUE) {
+                    throw new OutOfMemoryError("La lista de tableros superó 2 GB");
+                }
+                boards = Arrays.copyOf(boards, boards.length * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            board.store(boards, size * cells);
+            hashes[size] = board.hash();
+            ids[size] = id;
+            size++;
+        }
+
+        private void load(int index, PackedBoard board) {
+            board.load(boards, index * cells, hashes[index]);
+        }
+
+        private void addAll(BoardList other, int firstId) {
+            int total = size + other.size;
+            if (total > ids.length) {
+                int capacity = Math.max(ids.length * 2, total);
+                if ((long) capacity * cells > Integer.MAX_VALUE) {
+                    throw new OutOfMemoryError("La lista de tableros superó 2 GB");
+                }
+                boards = Arrays.copyOf(boards, capacity * cells);
+                hashes = Arrays.copyOf(hashes, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            System.arraycopy(other.boards, 0, boards, size * cells, other.size * cells);
+            System.arraycopy(other.hashes, 0, hashes, size, other.size);
+            for (int i = 0; i < other.size; i++) {
+                ids[size + i] = firstId + i;
+            }
+            size = total;
+        }
+    }
+
+    /**
+     * Expande un tramo de una capa de la búsqueda en anchura paralela. Los
+     * sucesores nuevos se guardan en una lista propia de la tarea, con el nodo
+     * padre como número asociado, para no compartir nada más que el conjunto
+     * de visitados.
+     */
+    private class Expansion implements Callable<Expansion> {
+        private final BoardList layer;
+        private final int from;
+        private final int to;
+        private final ConcurrentLongHashSet visited;
+        private final AtomicBoolean found;
+        private final BoardList successors = new BoardList(cells);
+        private byte[] moves = new byte[64];
+        private int goalIndex = -1;
+        private long expanded;
+
+        private Expansion(BoardList layer, int from, int to, ConcurrentLongHashSet visited, AtomicBoolean found) {
+            this.layer = layer;
+            this.from = from;
+            this.to = to;
+            this.visited = visited;
+            this.found = found;
+        }
+
+        @Override
+        public Expansion call() {
+            PackedBoard state = start.copy();
+            PackedBoard child = start.copy();
+            for (int i = from; i < to && !found.get(); i++) {
+                layer.load(i, state);
+                expanded++;
+                for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                    state.copyInto(child);
+                    child.tilt(DIRECTIONS[direction]);
+                    if (!visited.add(child.hash())) {
+                        continue;
+                    }
+                    if (successors.size == moves.length) {
+                        moves = Arrays.copyOf(moves, moves.length * 2);
+                    }
+                    moves[successors.size] = (byte) direction;
+                    successors.add(child, layer.ids[i]);
+                    if (child.equals(goal)) {
+                        goalIndex = successors.size - 1;
+                        found.set(true);
+                        return this;
+                    }
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Montículo binario mínimo de valores long, sin objetos por elemento.
+     */
+    private static class LongHeap {
+        private long[] values = new long[1024];
+        private int size;
+
+        private int size() {
+            return size;
+        }
+
+        private void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (values[parent] <= value) {
+                    break;
+                }
+                values[index] = values[parent];
+                index = parent;
+            }
+            values[index] = value;
+        }
+
+        private long pop() {
+            long top = values[0];
+            long last = values[--size];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && values[child + 1] < values[child]) {
+                    child++;
+                }
+                if (values[child] >= last) {
+                    break;
+                }
+                values[index] = values[child];
+                index = child;
+            }
+            values[index] = last;
+            return top;
+        }
+    }
+
+    /**
+     * Un lado de la búsqueda bidireccional: la capa que se está expandiendo, la
+     * siguiente, y para cada nodo su enlace (padre hacia adelante, sucesor
+     * hacia atrás), el movimiento que los une y su distancia al origen del lado.
+     */
+    private class Side {
+        private BoardList layer;
+        private BoardList next;
+        private int[] links = new int[1024];
+        private byte[] moves = new byte[1024];
+        private int[] depths = new int[1024];
+        private int nodes = 1;
+
+        private Side(PackedBoard origin) {
+            layer = new BoardList(cells);
+            next = new BoardList(cells);
+            links[0] = -1;
+            layer.add(origin, 0);
+        }
+
+        private int add(PackedBoard board, int link, int move) {
+            if (nodes == links.length) {
+                links = Arrays.copyOf(links, nodes * 2);
+                moves = Arrays.copyOf(moves, nodes * 2);
+                depths = Arrays.copyOf(depths, nodes * 2);
+            }
+            int node = nodes++;
+            links[node] = link;
+            moves[node] = (byte) move;
+            depths[node] = depths[link] + 1;
+            next.add(board, node);
+            return node;
+        }
+
+        private void advance() {
+            BoardList done = layer;
+            layer = next;
+            next = done;
+            next.size = 0;
+        }
+    }
+}
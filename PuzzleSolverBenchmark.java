@@ -0,0 +1,71 @@
+import java.util.Random;
+
+/**
+ * Mide cómo escala la búsqueda en anchura paralela de PuzzleSolver con la
+ * cantidad de hilos.
+ *
+ * Genera un tablero aleatorio con fichas y Fixed, y le pide al solucionador un
+ * tablero final inalcanzable, así que cada búsqueda recorre todos los estados
+ * alcanzables. Imprime para cada cantidad de hilos (1, 2, 4, ... hasta los
+ * núcleos disponibles, o los indicados como argumento) los nodos
+ * por segundo y la aceleración respecto a un hilo.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class PuzzleSolverBenchmark {
+    private static final int SIZE = 5;
+    private static final int TILES = 10;
+    private static final int BLOCKERS = 2;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        Random random = new Random(seed);
+        PackedBoard start = randomBoard(random);
+        PackedBoard goal = new PackedBoard(SIZE, SIZE);
+        goal.set(0, 0, PackedBoard.encode('r'));
+        PuzzleSolver solver = new PuzzleSolver(start, goal);
+
+        solver.solveBreadthFirst();
+        System.out.printf("Secuencial: %d nodos, %.2f s, %.0f nodos/s%n",
+            solver.getNodesExpanded(), solver.getElapsedNanos() / 1e9, solver.getNodesPerSecond());
+
+        double base = 0;
+        for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(maxThreads, threads * 2)) {
+            double best = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                solver.solveParallel(threads);
+                best = Math.max(best, solver.getNodesPerSecond());
+            }
+            if (threads == 1) {
+                base = best;
+            }
+            System.out.printf("%3d hilos: %d nodos, %.0f nodos/s, aceleración %.2fx%n",
+                threads, solver.getNodesExpanded(), best, best / base);
+        }
+    }
+
+    private static PackedBoard randomBoard(Random random) {
+        PackedBoard board = new PackedBoard(SIZE, SIZE);
+        String colors = "rgby";
+        for (int i = 0; i < TILES; i++) {
+            place(board, random, PackedBoard.encode(colors.charAt(random.nextInt(colors.length()))));
+        }
+        for (int i = 0; i < BLOCKERS; i++) {
+            place(board, random, PackedBoard.encode("Fixed", 'F'));
+        }
+        return board;
+    }
+
+    private static void place(PackedBoard board, Random random, byte cell) {
+        while (true) {
+            int row = random.nextInt(SIZE);
+            int column = random.nextInt(SIZE);
+            if (board.get(row, column) == PackedBoard.EMPTY) {
+                board.set(row, column, cell);
+                return;
+            }
+        }
+    }
+}
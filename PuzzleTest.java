@@ -1,9 +1,20 @@
 import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
 
 public class PuzzleTest {
     
@@ -11,7 +22,7 @@ public class PuzzleTest {
 
     @BeforeEach
     public void setUp() {
-        puzzle = new Puzzle(3, 3); 
+        puzzle = new Puzzle(3, 3, new HeadlessRenderer()); 
     }
 
     @Test
@@ -19,11 +30,11 @@ public class PuzzleTest {
         int height = 3;
         int width = 3;
 
-        Puzzle newPuzzle = new Puzzle(height, width);
+        Puzzle newPuzzle = new Puzzle(height, width, new HeadlessRenderer());
 
         assertNotNull(newPuzzle); // Verifica que el rompecabezas se ha creado
-        assertEquals(height, newPuzzle.getHeight()); // Verifica la altura
-        assertEquals(width, newPuzzle.getWeight()); // Verifica el ancho
+        assertEquals(height, newPuzzle.getStarting().length); // Verifica la altura
+        assertEquals(width, newPuzzle.getStarting()[0].length); // Verifica el ancho
         assertNotNull(newPuzzle.getStarting()); // Verifica que la matriz inicial no es nula
         assertNotNull(newPuzzle.getEnding()); // Verifica que la matriz final no es nula
     }
@@ -34,7 +45,7 @@ public class PuzzleTest {
         int width = -1;
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
-            new Puzzle(height, width);
+            new Puzzle(height, width, new HeadlessRenderer());
         });
 
         assertEquals("Las dimensiones deben ser positivas", exception.getMessage());
@@ -44,7 +55,7 @@ public class PuzzleTest {
     public void shouldCreatePuzzleWithFinalBoardOnly() {
         char[][] finalBoard = {{'.', '.', '.'}, {'.', 'r', '.'}, {'.', '.', '.'}};
 
-        Puzzle newPuzzle = new Puzzle(finalBoard);
+        Puzzle newPuzzle = new Puzzle(finalBoard, new HeadlessRenderer());
 
         assertNotNull(newPuzzle); 
         assertNotNull(newPuzzle.getEnding());
@@ -54,7 +65,7 @@ public class PuzzleTest {
     @Test
     public void shouldNotCreatePuzzleWithNullFinalBoard() {
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
-            new Puzzle((char[][]) null);
+            new Puzzle((char[][]) null, new HeadlessRenderer());
         });
 
         assertEquals("El tablero final no puede ser nulo", exception.getMessage());
@@ -183,16 +194,16 @@ public void shouldAddGlueToTileAndIncludeAdjacentTiles() {
     puzzle.addGlue(0, 0); 
 
     // Assert: verifica que la ficha en (0,0) esté pegada
-    assertTrue("Tile at (0,0) should be glued", Glue.isGlued(tile00));
+    assertTrue(puzzle.isGlued(0, 0), "Tile at (0,0) should be glued");
     
     // Verifica que la ficha adyacente en (0,1) también esté pegada
-    assertTrue("Adjacent tile at (0,1) should be glued", Glue.isGlued(tile01));
+    assertTrue(puzzle.isGlued(0, 1), "Adjacent tile at (0,1) should be glued");
 
     // Verifica que se haya creado un solo grupo de pegamento y que incluya ambas fichas
     ArrayList<ArrayList<Tile>> glueGroups = puzzle.getGlue();
-    assertEquals("Only one glue group should be created", 1, glueGroups.size());
-    assertTrue("Glue group should contain the tile at (0,0)", glueGroups.get(0).contains(tile00));
-    assertTrue("Glue group should contain the adjacent tile at (0,1)", glueGroups.get(0).contains(tile01));
+    assertEquals(1, glueGroups.size(), "Only one glue group should be created");
+    assertTrue(glueGroups.get(0).contains(tile00), "Glue group should contain the tile at (0,0)");
+    assertTrue(glueGroups.get(0).contains(tile01), "Glue group should contain the adjacent tile at (0,1)");
 }
 
     @Test
@@ -466,15 +477,27 @@ public void shouldAddGlueToTileAndIncludeAdjacentTiles() {
         assertEquals('a', puzzle.getStarting()[1][0].getType());
         assertEquals('b', puzzle.getStarting()[1][1].getType());
     }
+
+    @Test
+    public void shouldDropTilesIntoHoleWhenTiltingLeft() {
+        puzzle.makeHole(1, 0);
+        puzzle.addTile(1, 1, 'a');
+        puzzle.addTile(1, 2, 'b');
+        puzzle.tilt('l');
+    
+        assertEquals("hole", puzzle.getStarting()[1][0].getTypet());
+        assertNull(puzzle.getStarting()[1][1]);
+        assertNull(puzzle.getStarting()[1][2]);
+    }
     @Test
     public void shouldCountMisplacedTiles() {
         puzzle.addTile(0, 0, 'a');
         puzzle.addTile(1, 0, 'b');
         puzzle.addTile(2, 0, 'c');
     
-        puzzle.getEnding()[0][0] = new Tile(50, 50, 0, 0, "red", 'a');
-        puzzle.getEnding()[1][0] = new Tile(50, 50, 0, 50, "blue", 'b');
-        puzzle.getEnding()[2][0] = new Tile(50, 50, 0, 100, "green", 'd'); // Mal
+        puzzle.setEndingTile(0, 0, new Tile(50, 50, 0, 0, "red", 'a'));
+        puzzle.setEndingTile(1, 0, new Tile(50, 50, 0, 50, "blue", 'b'));
+        puzzle.setEndingTile(2, 0, new Tile(50, 50, 0, 100, "green", 'd')); // Mal
     
         int misPlacedCount = puzzle.misPlacedTiles();
     
@@ -487,9 +510,9 @@ public void shouldAddGlueToTileAndIncludeAdjacentTiles() {
         puzzle.addTile(1, 0, 'b');
         puzzle.addTile(2, 0, 'c');
     
-        puzzle.getEnding()[0][0] = new Tile(50, 50, 0, 0, "red", 'a');
-        puzzle.getEnding()[1][0] = new Tile(50, 50, 0, 50, "blue", 'b');
-        puzzle.getEnding()[2][0] = new Tile(50, 50, 0, 100, "green", 'c'); // Bien
+        puzzle.setEndingTile(0, 0, new Tile(50, 50, 0, 0, "red", 'a'));
+        puzzle.setEndingTile(1, 0, new Tile(50, 50, 0, 50, "blue", 'b'));
+        puzzle.setEndingTile(2, 0, new Tile(50, 50, 0, 100, "green", 'c')); // Bien
     
         int misPlacedCount = puzzle.misPlacedTiles();
     
@@ -501,9 +524,9 @@ public void shouldAddGlueToTileAndIncludeAdjacentTiles() {
         puzzle.addTile(0, 0, 'a');
         puzzle.addTile(1, 0, 'b');
     
-        puzzle.getEnding()[0][0] = new Tile(50, 50, 0, 0, "red", 'a');
-        puzzle.getEnding()[1][0] = new Tile(50, 50, 0, 50, "blue", 'c'); // Mal 
-        puzzle.getEnding()[2][0] = null; // Sin ficha
+        puzzle.setEndingTile(0, 0, new Tile(50, 50, 0, 0, "red", 'a'));
+        puzzle.setEndingTile(1, 0, new Tile(50, 50, 0, 50, "blue", 'c')); // Mal 
+        puzzle.setEndingTile(2, 0, null); // Sin ficha
     
         int misPlacedCount = puzzle.misPlacedTiles();
     
@@ -514,9 +537,9 @@ public void shouldAddGlueToTileAndIncludeAdjacentTiles() {
         puzzle.addTile(0, 1, 'b');
         puzzle.addTile(1, 0, 'c');
     
-        puzzle.getEnding()[0][0] = new Tile(50, 50, 0, 0, "red", 'a');
-        puzzle.getEnding()[0][1] = new Tile(50, 50, 0, 50, "blue", 'b');
-        puzzle.getEnding()[1][0] = new Tile(50, 50, 0, 100, "green", 'c');
+        puzzle.setEndingTile(0, 0, new Tile(50, 50, 0, 0, "red", 'a'));
+        puzzle.setEndingTile(0, 1, new Tile(50, 50, 0, 50, "blue", 'b'));
+        puzzle.setEndingTile(1, 0, new Tile(50, 50, 0, 100, "green", 'c'));
     
         boolean result = puzzle.isGoal();
     
@@ -527,8 +550,8 @@ public void shouldAddGlueToTileAndIncludeAdjacentTiles() {
     public void shouldReturnFalseWhenTilesAreMissing() {
         puzzle.addTile(0, 0, 'a');
         
-        puzzle.getEnding()[0][0] = new Tile(50, 50, 0, 0, "red", 'a');
-        puzzle.getEnding()[0][1] = new Tile(50, 50, 0, 50, "blue", 'b'); // Falta
+        puzzle.setEndingTile(0, 0, new Tile(50, 50, 0, 0, "red", 'a'));
+        puzzle.setEndingTile(0, 1, new Tile(50, 50, 0, 50, "blue", 'b')); // Falta
     
         boolean result = puzzle.isGoal();
     
@@ -539,8 +562,8 @@ public void shouldAddGlueToTileAndIncludeAdjacentTiles() {
     public void shouldReturnFalseWhenTilesDoNotMatch() {
         puzzle.addTile(0, 0, 'a');
     
-        puzzle.getEnding()[0][0] = new Tile(50, 50, 0, 0, "red", 'a');
-        puzzle.getEnding()[0][1] = new Tile(50, 50, 0, 50, "blue", 'c'); // Diferente
+        puzzle.setEndingTile(0, 0, new Tile(50, 50, 0, 0, "red", 'a'));
+        puzzle.setEndingTile(0, 1, new Tile(50, 50, 0, 50, "blue", 'c')); // Diferente
     
         boolean result = puzzle.isGoal();
     
@@ -578,22 +601,20 @@ public void shouldAddGlueToTileAndIncludeAdjacentTiles() {
     
     @Test
     public void shouldReturnCurrentArrangement() {
-        Tile[][] expectedArrangement = new Tile[3][3];
-        expectedArrangement[0][0] = new Tile(50, 50, 0, 0, "red", "ficha");
-        expectedArrangement[1][1] = new Tile(50, 50, 50, 50, "blue", "ficha");
-    
-        Puzzle puzzle = new Puzzle(3, 3);
+        Puzzle puzzle = new Puzzle(3, 3, new HeadlessRenderer());
         puzzle.addTile(0, 0, 'r');
         puzzle.addTile(1, 1, 'b');
     
         Tile[][] actualArrangement = puzzle.actualArrangement();
     
-        assertArrayEquals(expectedArrangement, actualArrangement);
+        assertEquals("red", actualArrangement[0][0].getColor());
+        assertEquals("blue", actualArrangement[1][1].getColor());
+        assertNull(actualArrangement[0][1]);
     }
     
     @Test
     public void shouldReturnEmptyArrangement() {
-        Puzzle puzzle = new Puzzle(3, 3);
+        Puzzle puzzle = new Puzzle(3, 3, new HeadlessRenderer());
         Tile[][] actualArrangement = puzzle.actualArrangement();
     
         Tile[][] expectedArrangement = new Tile[3][3]; // Arreglo vacío
@@ -601,34 +622,32 @@ public void shouldAddGlueToTileAndIncludeAdjacentTiles() {
     }
 
     public void shouldMakeAllTilesVisible() {
-        Puzzle puzzle = new Puzzle(3, 3);
+        Puzzle puzzle = new Puzzle(3, 3, new HeadlessRenderer());
         puzzle.addTile(0, 0, 'r');
         puzzle.addTile(1, 1, 'b');
     
         puzzle.makeVisible();
     
-        assertTrue(puzzle.board.isVisible());
         assertTrue(puzzle.actualArrangement()[0][0].isVisible());
         assertTrue(puzzle.actualArrangement()[1][1].isVisible());
     }
     
     @Test
     public void shouldMakeAllTilesInvisible() {
-        Puzzle puzzle = new Puzzle(3, 3);
+        Puzzle puzzle = new Puzzle(3, 3, new HeadlessRenderer());
         puzzle.addTile(0, 0, 'r');
         puzzle.addTile(1, 1, 'b');
         puzzle.makeVisible();
     
         puzzle.makeInvisible();
     
-        assertFalse(puzzle.board.isVisible());
         assertFalse(puzzle.actualArrangement()[0][0].isVisible());
         assertFalse(puzzle.actualArrangement()[1][1].isVisible());
     }
     
     @Test
     public void shouldReturnTrueWhenBoardsAreIdentical() {
-        Puzzle puzzle = new Puzzle(3, 3); 
+        Puzzle puzzle = new Puzzle(3, 3, new HeadlessRenderer()); 
     
      
         puzzle.addTile(0, 0, 'r');
@@ -640,19 +659,477 @@ public void shouldAddGlueToTileAndIncludeAdjacentTiles() {
     }
     @Test
     public void shouldReturnFalseWhenBoardsAreDifferent() {
-        Puzzle puzzle = new Puzzle(3, 3);    
-      
-        puzzle.addTile(0, 0, 'r');
-        puzzle.addTile(0, 1, 'g');
-        
-       
+        char[][] startingBoard = {{'r', 'g', '.'}, {'.', '.', '.'}, {'.', '.', '.'}};
         char[][] finalBoard = {{'r', 'g', 'b'}, {'.', '.', '.'}, {'.', '.', '.'}};
-        puzzle.setEnding(finalBoard); 
+        Puzzle puzzle = new Puzzle(startingBoard, finalBoard, new HeadlessRenderer());
     
         assertFalse(puzzle.ok());
     }
-    @After
+    @Test
+    public void shouldMoveGluedTilesAsOneBlock() {
+        char[][] board = {{'.', '.', 'r'}, {'.', 'g', 'b'}, {'.', '.', '.'}};
+        Puzzle gluedPuzzle = new Puzzle(board, board, new HeadlessRenderer());
+        gluedPuzzle.addGlue(1, 1);
+
+        gluedPuzzle.tilt('l');
+        gluedPuzzle.tilt('u');
+
+        assertNotNull(gluedPuzzle.getStarting()[1][0]);
+        assertNotNull(gluedPuzzle.getStarting()[1][1]);
+        assertNull(gluedPuzzle.getStarting()[0][1]);
+        assertTrue(gluedPuzzle.isGlued(1, 0));
+    }
+
+    @Test
+    public void shouldSlideLooseTileInsideInterlockedGlueGroup() {
+        char[][] board = {{'r', '.', '.', 'r'}, {'r', 'r', 'r', 'r'}};
+        char[][] ending = {{'.', '.', '.', '.'}, {'.', '.', '.', '.'}};
+        Puzzle gluedPuzzle = new Puzzle(board, ending, new HeadlessRenderer());
+        gluedPuzzle.addGlue(1, 1);
+        gluedPuzzle.addGlue(1, 3);
+        gluedPuzzle.addGlue(0, 0);
+        gluedPuzzle.addTile(0, 2, 'b');
+
+        gluedPuzzle.tilt('l');
+
+        assertNotNull(gluedPuzzle.getStarting()[0][1]);
+        assertNull(gluedPuzzle.getStarting()[0][2]);
+        assertNotNull(gluedPuzzle.getStarting()[0][0]);
+        assertNotNull(gluedPuzzle.getStarting()[0][3]);
+    }
+
+    @Test
+    public void shouldTiltGlueGroupsLikeOneStepAtATime() {
+        Random random = new Random(11);
+        byte fixed = PackedBoard.encode("Fixed", 'F');
+        byte hole = PackedBoard.encode("hole", 'h');
+
+        for (int round = 0; round < 3000; round++) {
+            int h = 1 + random.nextInt(6);
+            int w = 1 + random.nextInt(6);
+            PackedBoard board = new PackedBoard(h, w);
+            for (int cell = 0; cell < h * w; cell++) {
+                int pick = random.nextInt(10);
+                if (pick < 6) {
+                    board.set(cell / w, cell % w, PackedBoard.encode("rbyg".charAt(random.nextInt(4))));
+                } else if (pick == 6) {
+                    board.set(cell / w, cell % w, fixed);
+                } else if (pick == 7) {
+                    board.set(cell / w, cell % w, hole);
+                }
+            }
+            GlueGroups glue = new GlueGroups(h, w);
+            for (int i = 4 + random.nextInt(14); i > 0; i--) {
+                int row = random.nextInt(h);
+                int column = random.nextInt(w);
+                if (board.get(row, column) == PackedBoard.EMPTY) {
+                    continue;
+                }
+                glue.glue(row, column);
+                int[][] neighbours = {{row - 1, column}, {row + 1, column}, {row, column - 1}, {row, column + 1}};
+                for (int[] neighbour : neighbours) {
+                    if (neighbour[0] >= 0 && neighbour[0] < h && neighbour[1] >= 0 && neighbour[1] < w
+                            && board.get(neighbour[0], neighbour[1]) != PackedBoard.EMPTY && random.nextBoolean()) {
+                        glue.glue(neighbour[0], neighbour[1]);
+                        glue.union(row, column, neighbour[0], neighbour[1]);
+                    }
+                }
+            }
+            for (char direction : "lrud".toCharArray()) {
+                assertEquals(tiltOneStepAtATime(board, glue, direction), GlueTilt.tilt(board, glue, direction),
+                    "ronda " + round + " hacia " + direction);
+            }
+        }
+    }
+
+    /**
+     * Inclina moviendo cada pieza (ficha suelta o grupo pegado) de a una celda
+     * mientras alguna pueda avanzar. Una pieza cae entera si alguna de sus
+     * celdas llega a un hueco, y un grupo pegado a una ficha que no desliza no
+     * se mueve.
+     */
+    private static PackedBoard tiltOneStepAtATime(PackedBoard board, GlueGroups glue, char direction) {
+        int h = board.getHeight();
+        int w = board.getWidth();
+        int rowStep = direction == 'u' ? -1 : direction == 'd' ? 1 : 0;
+        int columnStep = direction == 'l' ? -1 : direction == 'r' ? 1 : 0;
+        byte[] cells = new byte[h * w];
+        int[] piece = new int[h * w];
+        Map<Integer, Integer> pieceOfGroup = new HashMap<>();
+        int pieces = 0;
+        for (int cell = 0; cell < h * w; cell++) {
+            cells[cell] = board.get(cell / w, cell % w);
+            piece[cell] = -1;
+        }
+        for (int cell = 0; cell < h * w; cell++) {
+            if (PackedBoard.kind(cells[cell]) != PackedBoard.FICHA) {
+                continue;
+            }
+            int group = glue.group(cell / w, cell % w);
+            if (group < 0) {
+                piece[cell] = pieces++;
+                continue;
+            }
+            boolean slides = true;
+            for (int member : glue.members(cell / w, cell % w)) {
+                slides &= PackedBoard.kind(cells[member]) == PackedBoard.FICHA;
+            }
+            if (slides) {
+                if (!pieceOfGroup.containsKey(group)) {
+                    pieceOfGroup.put(group, pieces++);
+                }
+                piece[cell] = pieceOfGroup.get(group);
+            }
+        }
+
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            for (int current = 0; current < pieces; current++) {
+                boolean present = false;
+                boolean blocked = false;
+                boolean falls = false;
+                for (int cell = 0; cell < h * w && !blocked; cell++) {
+                    if (piece[cell] != current) {
+                        continue;
+                    }
+                    present = true;
+                    int row = cell / w + rowStep;
+                    int column = cell % w + columnStep;
+                    if (row < 0 || row >= h || column < 0 || column >= w) {
+                        blocked = true;
+                        continue;
+                    }
+                    int ahead = row * w + column;
+                    if (piece[ahead] == current || cells[ahead] == PackedBoard.EMPTY) {
+                        continue;
+                    }
+                    if (PackedBoard.kind(cells[ahead]) == PackedBoard.HOLE) {
+                        falls = true;
+                    } else {
+                        blocked = true;
+                    }
+                }
+                if (!present || blocked) {
+                    continue;
+                }
+                moved = true;
+                byte[] nextCells = cells.clone();
+                int[] nextPiece = piece.clone();
+                for (int cell = 0; cell < h * w; cell++) {
+                    if (piece[cell] == current) {
+                        nextCells[cell] = PackedBoard.EMPTY;
+                        nextPiece[cell] = -1;
+                    }
+                }
+                if (!falls) {
+                    for (int cell = 0; cell < h * w; cell++) {
+                        if (piece[cell] == current) {
+                            int ahead = (cell / w + rowStep) * w + cell % w + columnStep;
+                            nextCells[ahead] = cells[cell];
+                            nextPiece[ahead] = current;
+                        }
+                    }
+                }
+                cells = nextCells;
+                piece = nextPiece;
+            }
+        }
+
+        PackedBoard tilted = new PackedBoard(h, w);
+        for (int cell = 0; cell < h * w; cell++) {
+            tilted.set(cell / w, cell % w, cells[cell]);
+        }
+        return tilted;
+    }
+
+    @Test
+    public void shouldSolveContestWithMinimalTilts() {
+        char[][] starting = {{'r', '.', '.'}, {'.', '.', '.'}, {'.', '.', 'g'}};
+        char[][] ending = {{'.', '.', '.'}, {'.', '.', '.'}, {'.', 'r', 'g'}};
+        PuzzleContest contest = new PuzzleContest();
+
+        assertTrue(contest.solve(starting, ending));
+        assertArrayEquals(new char[]{'d', 'r'}, contest.getSolution());
+        assertTrue(contest.getNodesExpanded() > 0);
+    }
+
+    @Test
+    public void shouldSolveContestWithInformedSearch() {
+        char[][] starting = {{'r', '.', '.'}, {'.', '.', '.'}, {'.', '.', 'g'}};
+        char[][] ending = {{'.', '.', '.'}, {'.', '.', '.'}, {'.', 'r', 'g'}};
+        PuzzleContest contest = new PuzzleContest();
+
+        assertTrue(contest.solve(starting, ending, "astar"));
+        assertEquals(2, contest.getSolution().length);
+        assertTrue(contest.solve(starting, ending, "idastar"));
+        assertEquals(2, contest.getSolution().length);
+        assertTrue(contest.solve(starting, ending, "bidirectional"));
+        assertEquals(2, contest.getSolution().length);
+        assertTrue(contest.solve(starting, ending, "parallel"));
+        assertEquals(2, contest.getSolution().length);
+        assertTrue(contest.solve(starting, ending, "disk"));
+        assertEquals(2, contest.getSolution().length);
+    }
+
+    @Test
+    public void shouldRecordOneFramePerTilt(@TempDir Path directory) throws IOException {
+        char[][] starting = {{'r', '.', '.'}, {'.', 'b', '.'}, {'.', '.', '.'}};
+        char[][] ending = {{'.', '.', 'r'}, {'.', '.', 'b'}, {'.', '.', '.'}};
+
+        ImageRenderer renderer = new ImageRenderer(400, 200);
+        Puzzle puzzle = new Puzzle(starting, ending, renderer);
+        puzzle.makeVisible();
+        renderer.recordPng(directory);
+        puzzle.tilt('r');
+        puzzle.tilt('d');
+        renderer.close();
+
+        assertEquals(3, renderer.getFrames());
+        Path[] files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.sorted().toArray(Path[]::new);
+        }
+        assertEquals(3, files.length);
+        for (Path file : files) {
+            BufferedImage frame = ImageIO.read(file.toFile());
+            assertEquals(400, frame.getWidth());
+            assertEquals(200, frame.getHeight());
+        }
+    }
+
+    @Test
+    public void shouldSolveOnDiskWithManySmallRuns(@TempDir Path directory) {
+        char[][] starting = {{'r', '.', 'b', '.'}, {'.', 'y', '.', 'g'}, {'g', '.', '.', 'r'}, {'.', 'b', '.', '.'}};
+        PackedBoard start = PackedBoard.fromChars(starting);
+        PackedBoard goal = start.copy();
+        for (char direction : "dlur".toCharArray()) {
+            goal.tilt(direction);
+        }
+        PuzzleSolver solver = new PuzzleSolver(start, goal);
+
+        char[] inMemory = solver.solveBreadthFirst();
+        char[] onDisk = solver.solveOnDisk(directory, 2 * (16 + 12));
+
+        assertNotNull(onDisk);
+        assertEquals(inMemory.length, onDisk.length);
+        PackedBoard board = start.copy();
+        for (char direction : onDisk) {
+            board.tilt(direction);
+        }
+        assertEquals(goal, board);
+    }
+
+    @Test
+    public void shouldTiltBitBoardLikePackedBoard() {
+        Random random = new Random(7);
+        byte[] cells = {PackedBoard.EMPTY, PackedBoard.encode('r'), PackedBoard.encode('b'),
+            PackedBoard.encode('y'), PackedBoard.encode('g'), PackedBoard.encode("hole", 'h'),
+            PackedBoard.encode("Fixed", 'F')};
+        int[][] sizes = {{5, 7}, {16, 16}, {9, 20}, {20, 9}, {3, 40}, {64, 64}};
+
+        for (int[] size : sizes) {
+            for (int round = 0; round < 20; round++) {
+                PackedBoard packed = new PackedBoard(size[0], size[1]);
+                for (int row = 0; row < size[0]; row++) {
+                    for (int column = 0; column < size[1]; column++) {
+                        int pick = random.nextInt(10);
+                        packed.set(row, column, pick < cells.length ? cells[pick] : PackedBoard.EMPTY);
+                    }
+                }
+                PackedBoard original = packed.copy();
+                BitBoard bits = new BitBoard(packed);
+                for (int step = 0; step < 8; step++) {
+                    char direction = "lrud".charAt(random.nextInt(4));
+                    packed.tilt(direction);
+                    bits.tilt(direction);
+                    assertEquals(packed, bits.toPackedBoard(original),
+                        size[0] + "x" + size[1] + " después de " + direction);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldFindFixedTilesOnPackedCorner() {
+        char[][] starting = {{'r', 'b'}, {'y', '.'}};
+        char[][] ending = {{'.', '.'}, {'.', '.'}};
+
+        Puzzle puzzle = new Puzzle(starting, ending, new HeadlessRenderer());
+
+        assertArrayEquals(new int[][]{{0, 0}}, puzzle.fixedTiles());
+    }
+
+    @Test
+    public void shouldFindFixedTilesNextToHole() {
+        char[][] starting = {{'r', 'b'}, {'y', '.'}};
+        char[][] ending = {{'.', '.'}, {'.', '.'}};
+
+        Puzzle puzzle = new Puzzle(starting, ending, new HeadlessRenderer());
+        puzzle.makeHole(1, 1);
+
+        assertArrayEquals(new int[][]{{0, 0}, {1, 1}}, puzzle.fixedTiles());
+    }
+
+    @Test
+    public void shouldFindFixedTilesOfBlockedGlueGroup() {
+        char[][] starting = {{'r', 'b'}, {'y', '.'}};
+        char[][] ending = {{'.', '.'}, {'.', '.'}};
+
+        Puzzle puzzle = new Puzzle(starting, ending, new HeadlessRenderer());
+        puzzle.addGlue(0, 0);
+
+        assertArrayEquals(new int[][]{{0, 0}, {0, 1}, {1, 0}}, puzzle.fixedTiles());
+    }
+
+    @Test
+    public void shouldSplitGlueGroupWhenMiddleTileIsUnglued() {
+        char[][] starting = {{'r', 'b', 'y'}, {'.', '.', '.'}, {'.', '.', '.'}};
+        char[][] ending = {{'.', '.', '.'}, {'.', '.', '.'}, {'.', '.', '.'}};
+
+        Puzzle puzzle = new Puzzle(starting, ending, new HeadlessRenderer());
+        puzzle.addGlue(0, 1);
+        assertEquals(1, puzzle.getGlue().size());
+        assertEquals(3, puzzle.getGlue().get(0).size());
+
+        puzzle.deleteGlue(0, 1);
+
+        ArrayList<ArrayList<Tile>> groups = puzzle.getGlue();
+        assertEquals(2, groups.size());
+        assertEquals(1, groups.get(0).size());
+        assertEquals(1, groups.get(1).size());
+        assertFalse(puzzle.isGlued(0, 1));
+        assertTrue(puzzle.isGlued(0, 0));
+        assertTrue(puzzle.isGlued(0, 2));
+    }
+
+    @Test
+    public void shouldKeepGlueGroupsRightWhenReusingFreedSlots() {
+        GlueGroups groups = new GlueGroups(1, 6);
+
+        for (int round = 0; round < 50; round++) {
+            for (int column = 0; column < 6; column++) {
+                groups.glue(0, column);
+                if (column > 0) {
+                    groups.union(0, column - 1, 0, column);
+                }
+            }
+            assertEquals(6, groups.groupSize(0, 5));
+
+            groups.remove(0, 2);
+            assertEquals(2, groups.groupSize(0, 0));
+            assertEquals(3, groups.groupSize(0, 5));
+            assertNotEquals(groups.group(0, 0), groups.group(0, 5));
+
+            groups.glue(0, 2);
+            groups.union(0, 1, 0, 2);
+            groups.union(0, 2, 0, 3);
+            assertEquals(groups.group(0, 0), groups.group(0, 5));
+            assertEquals(6, groups.members(0, 4).length);
+
+            for (int column = 0; column < 6; column++) {
+                groups.remove(0, column);
+            }
+            assertTrue(groups.isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldCreateSpecialTilesInBoardCells() {
+        BoardView view = new BoardView(new HeadlessRenderer(), 0, 0, 50, 50);
+        Tile[] tiles = {new Fixed(0, 1, view), new Rough(1, 0, view), new Flying(1, 2, view), new Freelance(2, 1, view)};
+        TileKind[] kinds = {TileKind.FIXED, TileKind.ROUGH, TileKind.FLYING, TileKind.FREELANCE};
+
+        for (int i = 0; i < tiles.length; i++) {
+            assertEquals(kinds[i], tiles[i].getKind());
+            assertEquals(kinds[i].code(), PackedBoard.kind(tiles[i].getCode()));
+            assertSame(view, tiles[i].getBoard());
+        }
+        assertEquals(50, tiles[0].getXPosition());
+        assertEquals(0, tiles[0].getYPosition());
+        assertEquals(2, tiles[3].getRow());
+        assertEquals(1, tiles[3].getColumn());
+    }
+
+    @Test
+    public void shouldDropGlueWhenExchangingBoards() {
+        char[][] starting = {{'r', 'b', '.'}, {'.', '.', '.'}, {'.', '.', '.'}};
+        char[][] ending = {{'.', '.', '.'}, {'.', '.', '.'}, {'.', 'y', 'g'}};
+
+        Puzzle puzzle = new Puzzle(starting, ending, new HeadlessRenderer());
+        puzzle.addGlue(0, 0);
+        assertEquals(1, puzzle.getGlue().size());
+
+        puzzle.exchange();
+
+        assertTrue(puzzle.getGlue().isEmpty());
+        assertFalse(puzzle.isGlued(0, 0));
+        assertFalse(puzzle.isGlued(0, 1));
+
+        puzzle.addGlue(2, 1);
+        assertEquals(1, puzzle.getGlue().size());
+        assertEquals(2, puzzle.getGlue().get(0).size());
+    }
+
+    @Test
+    public void shouldNotBeOkWhenTileCharactersDiffer() {
+        char[][] starting = {{'a', '.'}, {'.', '.'}};
+        char[][] ending = {{'c', '.'}, {'.', '.'}};
+
+        Puzzle puzzle = new Puzzle(starting, ending, new HeadlessRenderer());
+
+        assertFalse(puzzle.isGoal());
+        assertFalse(puzzle.ok());
+    }
+
+    @Test
+    public void shouldBeOkAfterTiltReachesEnding() {
+        char[][] starting = {{'r', '.', '.'}, {'.', '.', 'b'}, {'.', '.', '.'}};
+        char[][] ending = {{'.', '.', 'r'}, {'.', '.', 'b'}, {'.', '.', '.'}};
+
+        Puzzle puzzle = new Puzzle(starting, ending, new HeadlessRenderer());
+        assertFalse(puzzle.ok());
+
+        puzzle.tilt('r');
+
+        assertTrue(puzzle.isGoal());
+        assertTrue(puzzle.ok());
+    }
+
+    @Test
+    public void shouldKeepBoardHashInStepWithPackedBoard() {
+        char[][] starting = {{'r', '.', 'a'}, {'.', 'b', '.'}, {'c', '.', '.'}};
+        char[][] ending = {{'.', '.', '.'}, {'.', '.', '.'}, {'.', '.', '.'}};
+
+        Puzzle puzzle = new Puzzle(starting, ending, new HeadlessRenderer());
+        assertEquals(PackedBoard.fromChars(starting).hash(), puzzle.boardHash());
+
+        puzzle.tilt('d');
+        puzzle.addTile(0, 0, 'y');
+        puzzle.deleteTile(2, 1);
+
+        assertEquals(PackedBoard.fromTiles(puzzle.getStarting()).hash(), puzzle.boardHash());
+    }
+
+    @Test
+    public void shouldNotSolveContestWhenTileCharactersDiffer() {
+        char[][] starting = {{'a', '.'}, {'.', '.'}};
+        char[][] ending = {{'c', '.'}, {'.', '.'}};
+
+        assertNotEquals(PackedBoard.fromChars(starting), PackedBoard.fromChars(ending));
+        assertFalse(new PuzzleContest().solve(starting, ending));
+    }
+
+    @Test
+    public void shouldNotSolveContestWhenTilesAreMissing() {
+        char[][] starting = {{'r', '.'}, {'.', '.'}};
+        char[][] ending = {{'r', 'g'}, {'.', '.'}};
+
+        assertFalse(new PuzzleContest().solve(starting, ending));
+    }
+
+    @AfterEach
     public void tearDown() {
-        puzzle = new Puzzle(3, 3);
+        puzzle = new Puzzle(3, 3, new HeadlessRenderer());
     }
 }
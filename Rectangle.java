@@ -1,5 +1,6 @@
 
 import java.awt.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A rectangle that can be manipulated and that draws itself on a canvas.
@@ -20,17 +21,28 @@ public class Rectangle {
     private int yPosition;
     private String color;
     private boolean isVisible;
+    private Renderer renderer;
 
     /**
      * Create a new rectangle at default position with default color.
      */
     public Rectangle(int width, int height, int xPosition, int yPosition, String color) {
+        this(width, height, xPosition, yPosition, color, null);
+    }
+
+    /**
+     * Create a new rectangle that draws itself on the given renderer.
+     * @param renderer where to draw, or null to use the Canvas
+     */
+    public Rectangle(int width, int height, int xPosition, int yPosition, String color,
+                     Renderer renderer) {
         this.width = width;
         this.height = height;
         this.xPosition = xPosition;
         this.yPosition = yPosition;
         this.color = color;
         this.isVisible = false;
+        this.renderer = renderer;
     }
 
     public int getXPosition() {
@@ -55,6 +67,13 @@ public class Rectangle {
         return width;
     }  
     
+    /**
+     *Tell whether the rectangle is visible
+     */
+    public boolean isVisible(){
+        return isVisible;
+    }
+    
     /**
      * Make this rectangle visible. If it was already visible, do nothing.
      */
@@ -120,43 +139,48 @@ public class Rectangle {
     }
 
     /**
-     * Slowly move the rectangle horizontally.
+     * Slowly move the rectangle horizontally. The animation runs on the
+     * Animator, so this returns at once.
      * @param distance the desired distance in pixels
+     * @return a future completed when the rectangle arrives
      */
-    public void slowMoveHorizontal(int distance){
-        int delta;
-
-        if(distance < 0) {
-            delta = -1;
-            distance = -distance;
-        } else {
-            delta = 1;
-        }
-
-        for(int i = 0; i < distance; i++){
-            xPosition += delta;
-            draw();
-        }
+    public CompletableFuture<Void> slowMoveHorizontal(int distance){
+        return animateTo(xPosition + distance, yPosition, Animator.durationFor(distance));
     }
 
     /**
-     * Slowly move the rectangle vertically.
+     * Slowly move the rectangle vertically. The animation runs on the
+     * Animator, so this returns at once.
      * @param distance the desired distance in pixels
+     * @return a future completed when the rectangle arrives
      */
-    public void slowMoveVertical(int distance){
-        int delta;
-
-        if(distance < 0) {
-            delta = -1;
-            distance = -distance;
-        } else {
-            delta = 1;
-        }
+    public CompletableFuture<Void> slowMoveVertical(int distance){
+        return animateTo(xPosition, yPosition + distance, Animator.durationFor(distance));
+    }
 
-        for(int i = 0; i < distance; i++){
-            yPosition += delta;
+    /**
+     * Move the rectangle to a new position, animating the drawing on the
+     * Animator. The position changes at once; only the drawing follows. An
+     * invisible rectangle, or one drawn on a renderer that does not animate,
+     * just jumps there.
+     * @param x the new x position
+     * @param y the new y position
+     * @param milliseconds how long the movement takes
+     * @return a future completed when the rectangle arrives
+     */
+    public CompletableFuture<Void> animateTo(int x, int y, int milliseconds){
+        if(!isVisible || !renderer().animates()) {
+            erase();
+            xPosition = x;
+            yPosition = y;
             draw();
+            return CompletableFuture.completedFuture(null);
         }
+        int fromX = xPosition;
+        int fromY = yPosition;
+        xPosition = x;
+        yPosition = y;
+        return Animator.getAnimator().move(this, fromX, fromY, milliseconds);
     }
 
     /**
@@ -186,12 +210,18 @@ public class Rectangle {
      */
 
     private void draw() {
+        drawAt(xPosition, yPosition);
+    }
+
+    /**
+     * Draw the rectangle at the given position, without moving it. Used by
+     * the Animator to show the rectangle on its way.
+     */
+    void drawAt(int x, int y) {
         if(isVisible) {
-            Canvas canvas = Canvas.getCanvas();
+            Renderer canvas = renderer();
             canvas.draw(this, color,
-                new java.awt.Rectangle(xPosition, yPosition, 
-                                       width, height));
-            canvas.wait(10);
+                new java.awt.Rectangle(x, y, width, height));
         }
     }
 
@@ -200,7 +230,7 @@ public class Rectangle {
      */
     private void erase(){
         if(isVisible) {
-            Canvas canvas = Canvas.getCanvas();
+            Renderer canvas = renderer();
             canvas.erase(this);
         }
     }
@@ -219,6 +249,14 @@ public class Rectangle {
         draw(); 
     }
     
+    /**
+     * The renderer this rectangle draws on. The Canvas is only created the
+     * first time a rectangle without its own renderer is drawn.
+     */
+    Renderer renderer() {
+        return renderer != null ? renderer : Canvas.getCanvas();
+    }
+
     public String getColor(){
         return color;
     }
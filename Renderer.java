@@ -0,0 +1,60 @@
+import java.awt.Shape;
+
+/**
+ * Destino donde se dibujan las figuras del juego.
+ *
+ * Canvas es la implementación con ventana (Swing); HeadlessRenderer no dibuja
+ * nada, para ejecutar el juego, las pruebas y los solucionadores en un
+ * servidor sin pantalla. Cada Puzzle recibe su renderer al construirse y lo
+ * pasa a todas sus fichas.
+ *
+ * @author Arteaga-Hurtado
+ */
+public interface Renderer {
+
+    /**
+     * Dibuja una figura, reemplazando la que tuviera el mismo objeto de referencia.
+     *
+     * @param referenceObject el objeto que identifica la figura
+     * @param color el color de la figura
+     * @param shape la figura a dibujar
+     */
+    void draw(Object referenceObject, String color, Shape shape);
+
+    /**
+     * Borra la figura de un objeto de referencia.
+     *
+     * @param referenceObject el objeto que identifica la figura
+     */
+    void erase(Object referenceObject);
+
+    /**
+     * Espera la cantidad de milisegundos indicada, para animar los cambios.
+     *
+     * @param milliseconds los milisegundos a esperar
+     */
+    void wait(int milliseconds);
+
+    /**
+     * Empieza un cuadro: los cambios que siguen se acumulan y se muestran todos
+     * juntos en commitFrame(). Los cuadros se pueden anidar; solo el más
+     * externo muestra los cambios.
+     */
+    void beginFrame();
+
+    /**
+     * Termina el cuadro empezado con beginFrame() y, si es el más externo,
+     * muestra de una vez todos los cambios acumulados.
+     */
+    void commitFrame();
+
+    /**
+     * Indica si vale la pena animar los movimientos en este renderer. Si no,
+     * las figuras saltan directamente a su destino.
+     *
+     * @return true si los movimientos se animan
+     */
+    default boolean animates() {
+        return true;
+    }
+}
@@ -18,6 +18,18 @@ public class Rough extends Tile
      */
     public Rough(int width, int height, int xPosition, int yPosition) {
         super(width, height, xPosition, yPosition, "magenta", 'r');
-        setTypet("Rough");
+        setKind(TileKind.ROUGH);
+    }
+
+    /**
+     * Constructor para crear una ficha Rough en una celda de un tablero.
+     *
+     * @param row         Fila de la ficha.
+     * @param column      Columna de la ficha.
+     * @param board       Vista del tablero donde se dibuja la ficha.
+     */
+    public Rough(int row, int column, BoardView board) {
+        super(row, column, "magenta", 'r', board);
+        setKind(TileKind.ROUGH);
     }
 }
\ No newline at end of file
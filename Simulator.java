@@ -1,279 +1,106 @@
-public class Simulator {
-    private Tile[][] startingCopy;
-    private int h; // Altura del tablero
-    private int w; // Ancho del tablero
-    private Puzzle puzzle; // Instancia de Puzzle
-
-    public Simulator(Puzzle puzzle) {
-        this.puzzle = puzzle;
-        this.startingCopy = gameCopy(puzzle); // Crea la copia del tablero al inicializar
-        this.h = startingCopy.length;
-        this.w = startingCopy[0].length;
-    }
-    /**
- * Reubica una ficha en una copia del tablero, sin afectar el original.
- *
- * @param from arreglo que contiene la posición de origen [fila, columna]
- * @param to arreglo que contiene la posición de destino [fila, columna]
- * @param startingCopy copia del tablero inicial
- */
-private void relocate(int[] from, int[] to, Tile[][] startingCopy, Puzzle puzzle) {
-    int fromRow = from[0];
-    int fromColumn = from[1];
-    int toRow = to[0];
-    int toColumn = to[1];
-
-    if (fromRow >= 0 && fromRow < h && fromColumn >= 0 && fromColumn < w &&
-        toRow >= 0 && toRow < h && toColumn >= 0 && toColumn < w) {   
-        if (startingCopy[fromRow][fromColumn] == null) {
-            System.out.println("No hay ficha en la posición de origen en la copia.");
-            return; 
-        }
-        if (startingCopy[fromRow][fromColumn].getTypet().equals("hole")) {
-            return;
-        }
-        if (startingCopy[toRow][toColumn] == null) {
-            Tile tile = startingCopy[fromRow][fromColumn];
-            startingCopy[toRow][toColumn] = tile; 
-            startingCopy[fromRow][fromColumn] = null; 
-            tile.setPosition(toColumn * 50, toRow * 50); 
-        } else if (startingCopy[toRow][toColumn].getTypet().equals("hole")) {
-            puzzle.deleteTile(fromRow, fromColumn); 
-        }
-    } else {
-        System.out.println("Coordenadas fuera de los límites del tablero.");
-    }
-}
 /**
- * Simula un tilt en la dirección especificada en una copia del tablero.
+ * Simula inclinaciones sobre tableros compactos sin efectos secundarios: cada
+ * simulación recibe un tablero y devuelve otro nuevo, sin tocar el tablero de
+ * entrada ni el Puzzle del que salió.
  *
- * @param direction la dirección en la que se realizará el tilt ('l', 'r', 'u', 'd')
- * @param startingCopy copia del tablero inicial
+ * Un Simulator guarda copias inmutables de los tableros inicial y final (y
+ * del pegamento), así que varios hilos pueden usar el mismo Simulator a la vez.
+ * Si hay fichas pegadas, las inclinaciones mueven cada grupo como un cuerpo
+ * rígido (ver GlueTilt).
  */
-public void tiltSimulator(char direction, Tile[][] startingCopy, Puzzle puzzle) {
-    switch (direction) {
-        case 'l':
-            tiltLeftSimulator(startingCopy, puzzle);
-            break;
-        case 'r':
-            tiltRightSimulator(startingCopy, puzzle);
-            break;
-        case 'u':
-            tiltUpSimulator(startingCopy, puzzle);
-            break;
-        case 'd':
-            tiltDownSimulator(startingCopy, puzzle);
-            break;
-        default:
-            System.out.println("Dirección inválida");
-    }
-}
-
+public class Simulator {
+    private final PackedBoard startingCopy;
+    private final PackedBoard endingCopy;
+    private final BitBoard startingBits;
+    private final BitBoard endingBits;
+    private final GlueGroups glue;
 
-    private void tiltLeftSimulator(Tile[][] startingCopy, Puzzle puzzle) {
-        for (int row = 0; row < h; row++) {
-            boolean moved;
-            do {
-                moved = false;
-                for (int column = 1; column < w; column++) {
-                    if (startingCopy[row][column] != null && startingCopy[row][column].getTypet().equals("ficha")) {
-                        if (startingCopy[row][column - 1] == null) {
-                            relocate(new int[]{row, column}, new int[]{row, column - 1},startingCopy, puzzle);
-                            moved = true;
-                        } else if (isHoleAt(row, column - 1, puzzle)) {
-                            puzzle.deleteTile(row, column);
-                            moved = true; 
-                            break;
-                        }
-                    }
-                }
-                moved = moved || canMoveLeftSimulator(row, startingCopy);
-            } while (moved);
-        }
-    }
-    
-/**
- * Verifica si hay fichas que pueden moverse a la izquierda en la fila especificada.
- *
- * @param row la fila que se está evaluando
- * @param startingCopy la copia del tablero inicial
- * @return true si hay fichas que pueden moverse, false en caso contrario
- */
-private boolean canMoveLeftSimulator(int row, Tile[][] startingCopy) {
-    for (int column = 1; column < w; column++) {
-        if (startingCopy[row][column] != null && startingCopy[row][column].getTypet().equals("ficha") && startingCopy[row][column - 1] == null) {
-            return true; 
-        }
+    public Simulator(Puzzle puzzle) {
+        this(PackedBoard.fromTiles(puzzle.getStarting()), PackedBoard.fromTiles(puzzle.getEnding()),
+            puzzle.getGlueState().getGroups());
     }
-    return false;
-}
 
-/**
- * Simula la inclinación hacia la derecha en el tablero.
- * Mueve las fichas a la derecha, fusionando las que se encuentren en la misma fila.
- *
- * @param startingCopy la copia del tablero inicial
- */
-private void tiltRightSimulator(Tile[][] startingCopy, Puzzle puzzle) {
-    for (int row = 0; row < h; row++) {
-        boolean moved;
-        do {
-            moved = false;
-            for (int column = w - 2; column >= 0; column--) {
-                if (startingCopy[row][column] != null && startingCopy[row][column].getTypet().equals("ficha")) {
-                    if (startingCopy[row][column + 1] == null) {
-                        relocate(new int[]{row, column}, new int[]{row, column + 1}, startingCopy, puzzle); 
-                        moved = true;
-                    } else if (isHoleAt(row, column + 1, puzzle)) {
-                        puzzle.deleteTile(row, column);
-                        moved = true; 
-                        break;
-                    }
-                }
-            }
-            moved = moved || canMoveRightSimulator(row, startingCopy);
-        } while (moved);
+    /**
+     * Crea un simulador para los tableros dados, de los que guarda copias.
+     *
+     * @param starting el tablero inicial
+     * @param ending el tablero final
+     */
+    public Simulator(PackedBoard starting, PackedBoard ending) {
+        this(starting, ending, null);
     }
-}
 
-/**
- * Verifica si hay fichas que pueden moverse a la derecha en la fila especificada.
- *
- * @param row la fila que se está evaluando
- * @param startingCopy la copia del tablero inicial
- * @return true si hay fichas que pueden moverse, false en caso contrario
- */
-private boolean canMoveRightSimulator(int row, Tile[][] startingCopy) {
-    for (int column = w - 2; column >= 0; column--) {
-        if (startingCopy[row][column] != null && startingCopy[row][column].getTypet().equals("ficha") && startingCopy[row][column + 1] == null) {
-            return true; 
+    /**
+     * Crea un simulador para los tableros dados y sus fichas pegadas, de los
+     * que guarda copias.
+     *
+     * @param starting el tablero inicial
+     * @param ending el tablero final
+     * @param glue los grupos de celdas pegadas del tablero inicial, o null
+     */
+    public Simulator(PackedBoard starting, PackedBoard ending, GlueGroups glue) {
+        this.startingCopy = starting.copy();
+        this.endingCopy = ending.copy();
+        this.glue = glue == null || glue.isEmpty() ? null : glue.copy();
+        if (this.glue == null && BitBoard.supports(startingCopy.getHeight(), startingCopy.getWidth())) {
+            this.startingBits = new BitBoard(startingCopy);
+            this.endingBits = new BitBoard(endingCopy);
+        } else {
+            this.startingBits = null;
+            this.endingBits = null;
         }
     }
-    return false;
-}
 
 /**
- * Simula la inclinación hacia arriba en el tablero.
- * Mueve las fichas hacia arriba, fusionando las que se encuentren en la misma columna.
+ * Simula un tilt en la dirección especificada sobre un tablero dado.
  *
- * @param startingCopy la copia del tablero inicial
+ * @param board el tablero, que no se modifica
+ * @param direction la dirección en la que se realizará el tilt ('l', 'r', 'u', 'd')
+ * @return un tablero nuevo con el resultado del tilt
  */
-private void tiltUpSimulator(Tile[][] startingCopy, Puzzle puzzle) {
-    for (int column = 0; column < w; column++) {
-        boolean moved;
-        do {
-            moved = false;
-            for (int row = 1; row < h; row++) {
-                if (startingCopy[row][column] != null && startingCopy[row][column].getTypet().equals("ficha")) {
-                    if (startingCopy[row - 1][column] == null) {
-                        relocate(new int[]{row, column}, new int[]{row - 1, column}, startingCopy, puzzle);
-                        moved = true;
-                    } else if (isHoleAt(row - 1, column, puzzle)) {
-                        puzzle.deleteTile(row, column);
-                        moved = true; 
-                        break;
-                    }
-                }
-            }
-            moved = moved || canMoveUpSimulator(column, startingCopy);
-        } while (moved);
-    }
+public static PackedBoard tilt(PackedBoard board, char direction) {
+    PackedBoard copy = board.copy();
+    copy.tilt(direction);
+    return copy;
 }
 
 /**
- * Verifica si hay fichas que pueden moverse hacia arriba en la columna especificada.
+ * Simula un tilt en la dirección especificada sobre el tablero inicial.
  *
- * @param column la columna que se está evaluando
- * @param startingCopy la copia del tablero inicial
- * @return true si hay fichas que pueden moverse, false en caso contrario
+ * @param direction la dirección en la que se realizará el tilt ('l', 'r', 'u', 'd')
+ * @return un tablero nuevo con el resultado del tilt
  */
-private boolean canMoveUpSimulator(int column, Tile[][] startingCopy) {
-    for (int row = 1; row < h; row++) {
-        if (startingCopy[row][column] != null && startingCopy[row][column].getTypet().equals("ficha") && startingCopy[row - 1][column] == null) {
-            return true; 
-        }
+public PackedBoard tiltSimulator(char direction) {
+    if (glue != null) {
+        return GlueTilt.tilt(startingCopy, glue, direction);
     }
-    return false;
+    return tilt(startingCopy, direction);
 }
 
 /**
- * Simula la inclinación hacia abajo en el tablero.
- * Mueve las fichas hacia abajo, fusionando las que se encuentren en la misma columna.
+ * Cuenta el número de fichas mal colocadas en un tablero respecto al tablero
+ * final del puzzle.
  *
- * @param startingCopy la copia del tablero inicial
+ * @param board el tablero a comparar
+ * @return el número de fichas mal colocadas
  */
-private void tiltDownSimulator(Tile[][] startingCopy, Puzzle puzzle) {
-    for (int column = 0; column < w; column++) {
-        boolean moved;
-        do {
-            moved = false;
-            for (int row = h - 2; row >= 0; row--) {
-                if (startingCopy[row][column] != null && startingCopy[row][column].getTypet().equals("ficha")) {
-                    if (startingCopy[row + 1][column] == null) {
-                        relocate(new int[]{row, column}, new int[]{row + 1, column}, startingCopy, puzzle); 
-                        moved = true;
-                    } else if (isHoleAt(row + 1, column, puzzle)) {
-                        puzzle.deleteTile(row, column);
-                        moved = true; 
-                        break;
-                    }
-                }
-            }
-            moved = moved || canMoveDownSimulator(column, startingCopy);
-        } while (moved);
-    }
+public int misPlacedTiles(PackedBoard board) {
+    return board.misPlacedTiles(endingCopy);
 }
 
 /**
- * Verifica si hay fichas que pueden moverse hacia abajo en la columna especificada.
+ * Cuenta el número de fichas mal colocadas después de simular un tilt.
+ * Usa el tablero de bits cuando el tablero cabe en él (hasta 64x64).
  *
- * @param column la columna que se está evaluando
- * @param startingCopy la copia del tablero inicial
- * @return true si hay fichas que pueden moverse, false en caso contrario
- */
-private boolean canMoveDownSimulator(int column, Tile[][] startingCopy) {
-    for (int row = h - 2; row >= 0; row--) {
-        if (startingCopy[row][column] != null && startingCopy[row][column].getTypet().equals("ficha") && startingCopy[row + 1][column] == null) {
-            return true; 
-        }
-    }
-    return false;
-}
-    
-    /**
- * Crea una copia del tablero actual.
- *
- * @return una copia del tablero
+ * @param direction la dirección en la que se realizará el tilt ('l', 'r', 'u', 'd')
+ * @return el número de fichas mal colocadas después del tilt
  */
-private static Tile[][] gameCopy(Puzzle puzzle) {
-    Tile[][] starting = puzzle.getStarting();
-    Tile[][] copy = new Tile[starting.length][starting[0].length];
-    for (int h = 0; h < starting.length; h++) {
-        for (int w = 0; w < starting[0].length; w++) {
-            if (starting[h][w] != null) {
-                copy[h][w] = new Tile(
-                    starting[h][w].getWidth(), 
-                    starting[h][w].getHeight(), 
-                    starting[h][w].getXPosition(), 
-                    starting[h][w].getYPosition(), 
-                    starting[h][w].getColor(), 
-                    starting[h][w].getType()    
-                );
-            }
-        }
+public int misPlacedAfterTilt(char direction) {
+    if (startingBits != null) {
+        BitBoard copy = startingBits.copy();
+        copy.tilt(direction);
+        return copy.misPlacedTiles(endingBits);
     }
-    return copy;
+    return misPlacedTiles(tiltSimulator(direction));
 }
-/**
- * Verifica si hay un hueco en la posición especificada.Simulador
- *
- * @param row la fila de la posición
- * @param column la columna de la posición
- * @return true si hay un hueco, false en caso contrario
- */
-private boolean isHoleAt(int row, int column, Puzzle puzzle) {
-    return row >= 0 && row < h && column >= 0 && column < w && gameCopy(puzzle)[row][column] != null && "hole".equals(gameCopy(puzzle)[row][column].getTypet());
 }
-
-
-}
\ No newline at end of file
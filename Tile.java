@@ -1,10 +1,22 @@
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Clase que representa una ficha en el juego.
+ *
+ * La ficha guarda solo su estado lógico (fila, columna, tipo y color) y la
+ * vista compartida de su tablero (BoardView). El rectángulo que la dibuja se
+ * crea la primera vez que la ficha se muestra, así que las fichas que nunca
+ * se dibujan (por ejemplo al simular o resolver) no cargan con él.
  */
 public class Tile {
-    private Rectangle rectangle;  
+    private int row;
+    private int column;
+    private BoardView board;
+    private String color;
+    private Rectangle rectangle; // se crea al mostrar la ficha
     private char type;          
-    private String typet;        
+    private TileKind kind;       // tipo compartido, con sus propiedades
+    private byte code;           // tipo y carácter como en PackedBoard
     private boolean glued;       
 
     /**
@@ -18,9 +30,43 @@ public class Tile {
      * @param type        Tipo de ficha.
      */
     public Tile(int width, int height, int xPosition, int yPosition, String color, char type) {
-        this.rectangle = new Rectangle(width, height, xPosition, yPosition, color);
+        this(width, height, xPosition, yPosition, color, type, null);
+    }
+
+    /**
+     * Constructor para crear una ficha que se dibuja en el renderer indicado.
+     *
+     * @param width       Ancho de la ficha.
+     * @param height      Altura de la ficha.
+     * @param xPosition   Posición en el eje X.
+     * @param yPosition   Posición en el eje Y.
+     * @param color       Color de la ficha.
+     * @param type        Tipo de ficha.
+     * @param renderer    Donde se dibuja la ficha, o null para usar el Canvas.
+     */
+    public Tile(int width, int height, int xPosition, int yPosition, String color, char type,
+                Renderer renderer) {
+        this(yPosition / height, xPosition / width, color, type,
+            new BoardView(renderer, xPosition % width, yPosition % height, width, height));
+    }
+
+    /**
+     * Constructor para crear una ficha en una celda de un tablero.
+     *
+     * @param row         Fila de la ficha.
+     * @param column      Columna de la ficha.
+     * @param color       Color de la ficha.
+     * @param type        Tipo de ficha.
+     * @param board       Vista del tablero donde se dibuja la ficha.
+     */
+    public Tile(int row, int column, String color, char type, BoardView board) {
+        this.row = row;
+        this.column = column;
+        this.color = color;
+        this.board = board;
         this.type = type;
-        this.typet = "ficha"; 
+        this.kind = TileKind.FICHA;
+        this.code = PackedBoard.encode(kind, type);
         this.glued = false; 
     }
 
@@ -56,7 +102,26 @@ public class Tile {
      * @return tipo de objeto como cadena.
      */
     public String getTypet() {
-        return typet;
+        return kind.getTypet();
+    }
+
+    /**
+     * Obtiene el tipo de la ficha con sus propiedades.
+     *
+     * @return tipo de la ficha.
+     */
+    public TileKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Obtiene el tipo y el carácter de la ficha codificados en un byte, igual
+     * que una celda de PackedBoard.
+     *
+     * @return el código de la ficha.
+     */
+    public byte getCode() {
+        return code;
     }
 
     /**
@@ -65,7 +130,7 @@ public class Tile {
      * @return color de la ficha.
      */
     public String getColor() {
-        return rectangle.getColor(); 
+        return color; 
     }
 
     /**
@@ -74,7 +139,7 @@ public class Tile {
      * @return ancho de la ficha.
      */
     public int getWidth() {
-        return rectangle.getWidth();
+        return board.getCellWidth();
     } 
 
     /**
@@ -83,7 +148,7 @@ public class Tile {
      * @return altura de la ficha.
      */
     public int getHeight() {
-        return rectangle.getHeight();
+        return board.getCellHeight();
     }
 
     /**
@@ -93,22 +158,81 @@ public class Tile {
      * @param y nueva posición en el eje Y.
      */
     public void setPosition(int x, int y) {
-        this.rectangle.setX(x);
-        this.rectangle.setY(y);
+        moveTo(board.row(y), board.column(x));
     }
 
     /**
-     * Hace visible la ficha.
+     * Mueve la ficha a otra celda de su tablero.
+     *
+     * @param row nueva fila.
+     * @param column nueva columna.
+     */
+    public void moveTo(int row, int column) {
+        moveTo(board, row, column);
+    }
+
+    /**
+     * Mueve la ficha a una celda de otro tablero.
+     *
+     * @param board vista del nuevo tablero.
+     * @param row nueva fila.
+     * @param column nueva columna.
+     */
+    public void moveTo(BoardView board, int row, int column) {
+        this.board = board;
+        this.row = row;
+        this.column = column;
+        if (rectangle != null) {
+            rectangle.setX(getXPosition());
+            rectangle.setY(getYPosition());
+        }
+    }
+
+    /**
+     * Desliza la ficha hasta otra celda de su tablero con animación. La
+     * posición de la ficha cambia de inmediato; el dibujo la sigue sin
+     * bloquear al llamador.
+     *
+     * @param row nueva fila.
+     * @param column nueva columna.
+     * @return un future que se completa cuando termina la animación.
+     */
+    public CompletableFuture<Void> slideTo(int row, int column) {
+        this.row = row;
+        this.column = column;
+        if (rectangle == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return rectangle.animateTo(getXPosition(), getYPosition(), Animator.MOVE_MILLIS);
+    }
+
+    /**
+     * Hace visible la ficha, creando su rectángulo si es la primera vez.
      */
     public void makeVisible() {
+        if (rectangle == null) {
+            rectangle = new Rectangle(getWidth(), getHeight(), getXPosition(), getYPosition(), color,
+                board.getRenderer());
+        }
         rectangle.makeVisible();
     }
 
+    /**
+     * Indica si la ficha se está mostrando.
+     *
+     * @return true si la ficha es visible, false en caso contrario.
+     */
+    public boolean isVisible() {
+        return rectangle != null && rectangle.isVisible();
+    }
+
     /**
      * Hace invisible la ficha.
      */
     public void makeInvisible() {
-        rectangle.makeInvisible();
+        if (rectangle != null) {
+            rectangle.makeInvisible();
+        }
     }
 
     /**
@@ -117,7 +241,10 @@ public class Tile {
      * @param newColor nuevo color para la ficha.
      */
     public void changeColor(String newColor) {
-        rectangle.changeColor(newColor);
+        color = newColor;
+        if (rectangle != null) {
+            rectangle.changeColor(newColor);
+        }
     }
 
     /**
@@ -126,7 +253,7 @@ public class Tile {
      * @return posición en el eje X.
      */
     public int getXPosition() {
-        return rectangle.getXPosition();
+        return board.x(column);
     }
 
     /**
@@ -135,7 +262,7 @@ public class Tile {
      * @return posición en el eje Y.
      */
     public int getYPosition() {
-        return rectangle.getYPosition();
+        return board.y(row);
     }
 
     /**
@@ -153,7 +280,17 @@ public class Tile {
      * @param type nuevo tipo de ficha.
      */
     public void setTypet(String typet) {
-        this.typet = typet;
+        setKind(TileKind.fromTypet(typet));
+    }
+
+    /**
+     * Establece el tipo de la ficha.
+     *
+     * @param kind nuevo tipo de la ficha.
+     */
+    public void setKind(TileKind kind) {
+        this.kind = kind;
+        this.code = PackedBoard.encode(kind, type);
     }
 
     /**
@@ -162,7 +299,7 @@ public class Tile {
      * @return fila de la ficha.
      */
     public int getRow() {
-        return getYPosition() / 50; 
+        return row; 
     }
 
     /**
@@ -171,6 +308,15 @@ public class Tile {
      * @return columna de la ficha.
      */
     public int getColumn() {
-        return getXPosition() / 50;
+        return column;
+    }
+
+    /**
+     * Obtiene la vista del tablero en el que se dibuja la ficha.
+     *
+     * @return vista del tablero de la ficha.
+     */
+    public BoardView getBoard() {
+        return board;
     }
 }
\ No newline at end of file
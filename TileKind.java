@@ -0,0 +1,109 @@
+/**
+ * Tipos de ficha del juego y cómo se comporta cada uno.
+ *
+ * Cada tipo es una única instancia compartida por todas las fichas de ese
+ * tipo, con su código numérico (el mismo de PackedBoard) y sus propiedades
+ * como banderas, así que los recorridos del tablero preguntan por un campo en
+ * vez de comparar nombres.
+ *
+ * @author Arteaga-Hurtado
+ */
+public enum TileKind {
+    FICHA(PackedBoard.FICHA, "ficha", true, true, true, true),
+    HOLE(PackedBoard.HOLE, "hole", false, true, true, false),
+    FIXED(PackedBoard.FIXED, "Fixed", false, false, true, true),
+    ROUGH(PackedBoard.ROUGH, "Rough", false, true, true, true),
+    FLYING(PackedBoard.FLYING, "Flying", false, true, true, false),
+    FREELANCE(PackedBoard.FREELANCE, "Freelance", false, true, false, true);
+
+    private static final TileKind[] BY_CODE = new TileKind[8];
+
+    static {
+        for (TileKind kind : values()) {
+            BY_CODE[kind.code] = kind;
+        }
+    }
+
+    private final int code;
+    private final String typet;
+    private final boolean slides;
+    private final boolean deletable;
+    private final boolean glueable;
+    private final boolean fallsIntoHole;
+
+    TileKind(int code, String typet, boolean slides, boolean deletable, boolean glueable,
+             boolean fallsIntoHole) {
+        this.code = code;
+        this.typet = typet;
+        this.slides = slides;
+        this.deletable = deletable;
+        this.glueable = glueable;
+        this.fallsIntoHole = fallsIntoHole;
+    }
+
+    /**
+     * Obtiene el tipo con el nombre dado ("ficha", "hole", "Fixed", ...).
+     * Un nombre desconocido se toma como ficha normal.
+     *
+     * @param typet el nombre del tipo
+     * @return el tipo
+     */
+    public static TileKind fromTypet(String typet) {
+        for (TileKind kind : values()) {
+            if (kind.typet.equals(typet)) {
+                return kind;
+            }
+        }
+        return FICHA;
+    }
+
+    /**
+     * Obtiene el tipo con el código dado.
+     *
+     * @param code el código, como en PackedBoard.kind
+     * @return el tipo, o null si el código no es de ningún tipo
+     */
+    public static TileKind fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    /** @return el código numérico del tipo, el mismo que usa PackedBoard */
+    public int code() {
+        return code;
+    }
+
+    /** @return el nombre del tipo ("ficha", "hole", "Fixed", ...) */
+    public String getTypet() {
+        return typet;
+    }
+
+    /** @return true si la ficha se desliza al inclinar el tablero */
+    public boolean slides() {
+        return slides;
+    }
+
+    /** @return true si la ficha detiene a las que se deslizan hacia ella */
+    public boolean blocks() {
+        return !slides;
+    }
+
+    /** @return true si la ficha se puede eliminar o mover */
+    public boolean isDeletable() {
+        return deletable;
+    }
+
+    /** @return true si la ficha se puede pegar */
+    public boolean isGlueable() {
+        return glueable;
+    }
+
+    /** @return true si la ficha cae cuando se mueve sobre un hueco (Flying pasa por encima) */
+    public boolean fallsIntoHole() {
+        return fallsIntoHole;
+    }
+
+    /** @return true si es un hueco */
+    public boolean isHole() {
+        return this == HOLE;
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Genera los tableros que, con una inclinación dada, terminan en un tablero
+ * dado. Lo usa la búsqueda bidireccional para avanzar desde el tablero final.
+ *
+ * Una inclinación no es invertible: muchos tableros llevan al mismo resultado.
+ * Pero todo estado de una solución, salvo el inicial, es a su vez el resultado
+ * de otra inclinación, así que solo se generan predecesores que estén
+ * compactados en alguna dirección: el tablero empujado al lado contrario, y los
+ * tableros compactados en una dirección perpendicular que conservan, segmento
+ * a segmento, el orden de las fichas de cada línea. El tablero inicial se
+ * revisa aparte. Los huecos no se consideran, porque una ficha que cayó en uno
+ * pudo ser cualquiera.
+ *
+ * @author Arteaga-Hurtado
+ */
+public class TiltPredecessors {
+    /**
+     * Recibe cada predecesor generado. El tablero se reutiliza entre llamadas,
+     * así que debe copiarse si se quiere guardar.
+     */
+    public interface Visitor {
+        void visit(PackedBoard predecessor);
+    }
+
+    private final int h;
+    private final int w;
+    private final int[] segmentStarts;
+    private final int[] segmentEnds;
+    private final int[] segmentTiles;
+    private final int[] lineSegments;
+    private final byte[] tiles;
+
+    private PackedBoard state;
+    private PackedBoard work;
+    private Visitor visitor;
+    private boolean horizontal;
+    private boolean towardsFirstLine;
+    private int lines;
+
+    /**
+     * Crea un generador para tableros de las dimensiones dadas.
+     *
+     * @param h alto del tablero
+     * @param w ancho del tablero
+     */
+    public TiltPredecessors(int h, int w) {
+        this.h = h;
+        this.w = w;
+        int cells = h * w;
+        this.segmentStarts = new int[cells + Math.max(h, w)];
+        this.segmentEnds = new int[segmentStarts.length];
+        this.segmentTiles = new int[segmentStarts.length];
+        this.lineSegments = new int[Math.max(h, w) + 1];
+        this.tiles = new byte[cells];
+    }
+
+    /**
+     * Recorre los predecesores de un tablero para una dirección.
+     *
+     * @param state el tablero resultante
+     * @param direction la dirección de la inclinación ('l', 'r', 'u', 'd')
+     * @param visitor quien recibe cada predecesor
+     */
+    public void forEach(PackedBoard state, char direction, Visitor visitor) {
+        PackedBoard tilted = state.copy();
+        tilted.tilt(direction);
+        if (!tilted.equals(state)) {
+            return;
+        }
+        PackedBoard opposite = state.copy();
+        opposite.tilt(opposite(direction));
+        if (!opposite.equals(state)) {
+            visitor.visit(opposite);
+        }
+
+        this.state = state;
+        this.visitor = visitor;
+        this.horizontal = direction == 'l' || direction == 'r';
+        this.lines = horizontal ? h : w;
+        readSegments();
+        for (int side = 0; side < 2; side++) {
+            towardsFirstLine = side == 0;
+            work = state.copy();
+            for (int line = 0; line < lines; line++) {
+                for (int segment = lineSegments[line]; segment < lineSegments[line + 1]; segment++) {
+                    for (int position = segmentStarts[segment]; position < segmentEnds[segment]; position++) {
+                        setCell(line, position, PackedBoard.EMPTY);
+                    }
+                }
+            }
+            placeLine(0, opposite);
+        }
+        this.state = null;
+        this.work = null;
+        this.visitor = null;
+    }
+
+    private static char opposite(char direction) {
+        switch (direction) {
+            case 'l':
+                return 'r';
+            case 'r':
+                return 'l';
+            case 'u':
+                return 'd';
+            default:
+                return 'u';
+        }
+    }
+
+    /**
+     * Separa cada línea del tablero en segmentos entre bloqueos y guarda, en
+     * orden, las fichas de cada segmento.
+     */
+    private void readSegments() {
+        int length = horizontal ? w : h;
+        int segment = 0;
+        int tile = 0;
+        for (int line = 0; line < lines; line++) {
+            lineSegments[line] = segment;
+            int position = 0;
+            while (position < length) {
+                if (isBlocker(cell(line, position))) {
+                    position++;
+                    continue;
+                }
+                segmentStarts[segment] = position;
+                segmentTiles[segment] = tile;
+                while (position < length && !isBlocker(cell(line, position))) {
+                    byte cell = cell(line, position);
+                    if (cell != PackedBoard.EMPTY) {
+                        tiles[tile++] = cell;
+                    }
+                    position++;
+                }
+                segmentEnds[segment] = position;
+                segment++;
+            }
+        }
+        lineSegments[lines] = segment;
+        segmentTiles[segment] = tile;
+    }
+
+    /**
+     * Coloca las fichas de la línea de orden index (contando desde el borde
+     * hacia el que está compactado el tablero) y sigue con la siguiente.
+     */
+    private void placeLine(int index, PackedBoard opposite) {
+        if (index == lines) {
+            if (!work.equals(state) && !work.equals(opposite)) {
+                visitor.visit(work);
+            }
+            return;
+        }
+        int line = towardsFirstLine ? index : lines - 1 - index;
+        placeSegment(index, line, lineSegments[line], opposite);
+    }
+
+    private void placeSegment(int index, int line, int segment, PackedBoard opposite) {
+        if (segment == lineSegments[line + 1]) {
+            placeLine(index + 1, opposite);
+            return;
+        }
+        placeTile(index, line, segment, segmentTiles[segment], segmentStarts[segment], opposite);
+    }
+
+    /**
+     * Prueba cada posición válida para la siguiente ficha del segmento. Una
+     * ficha solo puede quedar donde la celda anterior en la dirección de
+     * compactación está ocupada (o es el borde).
+     */
+    private void placeTile(int index, int line, int segment, int tile, int from, PackedBoard opposite) {
+        int lastTile = segmentTiles[segment + 1];
+        if (tile == lastTile) {
+            placeSegment(index, line, segment + 1, opposite);
+            return;
+        }
+        int remaining = lastTile - tile;
+        int previousLine = towardsFirstLine ? line - 1 : line + 1;
+        for (int position = from; position <= segmentEnds[segment] - remaining; position++) {
+            if (index > 0 && cell(previousLine, position) == PackedBoard.EMPTY) {
+                continue;
+            }
+            setCell(line, position, tiles[tile]);
+            placeTile(index, line, segment, tile + 1, position + 1, opposite);
+            setCell(line, position, PackedBoard.EMPTY);
+        }
+    }
+
+    private byte cell(int line, int position) {
+        PackedBoard board = work == null ? state : work;
+        return horizontal ? board.get(line, position) : board.get(position, line);
+    }
+
+    private void setCell(int line, int position, byte cell) {
+        if (horizontal) {
+            work.set(line, position, cell);
+        } else {
+            work.set(position, line, cell);
+        }
+    }
+
+    private static boolean isBlocker(byte cell) {
+        return cell != PackedBoard.EMPTY && PackedBoard.kind(cell) != PackedBoard.FICHA;
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Claves de Zobrist para los tableros del rompecabezas.
+ *
+ * El hash de un tablero es el XOR de una clave por cada celda ocupada, que
+ * depende de la posición y del byte de la celda (ver PackedBoard). Al mover una
+ * ficha basta con quitar la clave de la celda de origen y añadir la de la celda
+ * destino, así que el hash se mantiene en O(1) por cambio. Las claves se
+ * derivan con SplitMix64 en lugar de guardarse en una tabla, de modo que no
+ * ocupan memoria aunque el tablero sea muy grande.
+ *
+ * @author Arteaga-Hurtado
+ */
+public final class Zobrist {
+    private static final long SEED = 0x5DEECE66DL;
+
+    private Zobrist() {
+    }
+
+    /**
+     * Obtiene la clave de una celda con un contenido dado.
+     *
+     * @param cell el índice de la celda (fila * ancho + columna)
+     * @param code el byte de la celda
+     * @return la clave de la celda, 0 si está vacía
+     */
+    public static long key(int cell, byte code) {
+        if (code == PackedBoard.EMPTY) {
+            return 0;
+        }
+        long z = SEED + ((long) cell << 7 | code) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}